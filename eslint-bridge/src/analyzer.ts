@@ -18,9 +18,10 @@
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
 import { ParseExceptionCode, buildSourceCode } from './parser';
-import getHighlighting, { Highlight } from './runner/highlighter';
-import getMetrics, { EMPTY_METRICS, getMetricsForSonarLint, Metrics } from './runner/metrics';
-import getCpdTokens, { CpdToken } from './runner/cpd';
+import { Highlight } from './runner/highlighter';
+import { EMPTY_METRICS, getMetricsForSonarLint, Metrics } from './runner/metrics';
+import { CpdToken } from './runner/cpd';
+import getFileData from './runner/file-data';
 import { SourceCode } from 'eslint';
 import {
   HighlightedSymbol,
@@ -30,6 +31,10 @@ import {
 import { rules as sonarjsRules } from 'eslint-plugin-sonarjs';
 import { LinterWrapper, AdditionalRule } from './linter';
 import { getContext } from './context';
+import { invalidateModuleResolution } from './module-resolution';
+import { storeInternalResult } from './rule-results';
+import { interceptReport } from './utils';
+import { measurePhase } from './phase-timings';
 
 const COGNITIVE_COMPLEXITY_RULE_ID = 'internal-cognitive-complexity';
 
@@ -48,9 +53,14 @@ export const SYMBOL_HIGHLIGHTING_RULE: AdditionalRule = {
   activateAutomatically: true,
 };
 
+/**
+ * The metric is reported by the rule as an issue message, which is turned into a rule result
+ */
 export const COGNITIVE_COMPLEXITY_RULE: AdditionalRule = {
   ruleId: COGNITIVE_COMPLEXITY_RULE_ID,
-  ruleModule: sonarjsRules['cognitive-complexity'],
+  ruleModule: interceptReport(sonarjsRules['cognitive-complexity'], (context, descriptor) =>
+    storeInternalResult(context.id, Number((descriptor as { message: string }).message)),
+  ),
   ruleConfig: ['metric'],
   activateAutomatically: true,
 };
@@ -61,6 +71,13 @@ export interface AnalysisInput {
   fileContent: string | undefined;
   ignoreHeaderComments?: boolean;
   tsConfigs?: string[];
+  // only metrics and CPD tokens are computed when metrics-only, or above this number of tokens
+  metricsOnly?: boolean;
+  metricsOnlyTokens?: number;
+  // whether CPD tokens are computed for metrics-only files, true by default
+  metricsOnlyCpd?: boolean;
+  // record a CPU profile of the analysis of this file
+  cpuProfile?: boolean;
 }
 
 // eslint rule key
@@ -77,6 +94,9 @@ export interface AnalysisResponse {
   highlightedSymbols?: HighlightedSymbol[];
   metrics?: Metrics;
   cpdTokens?: CpdToken[];
+  // keys of the rules which exceeded their time budget on the file, their issues are not reported
+  skippedRules?: string[];
+  metricsOnly?: boolean;
 }
 
 export interface ParsingError {
@@ -120,6 +140,9 @@ export function initLinter(rules: Rule[], environments: string[] = [], globals:
   const additionalRules = [COGNITIVE_COMPLEXITY_RULE, ...customRules];
   if (!getContext().sonarlint) {
     additionalRules.push(SYMBOL_HIGHLIGHTING_RULE);
+  } else {
+    // files might have changed since previous analysis
+    invalidateModuleResolution();
   }
   linter = new LinterWrapper(rules, additionalRules, environments, globals);
 }
@@ -134,7 +157,7 @@ function analyze(input: AnalysisInput, language: 'ts' | 'js'): AnalysisResponse
   if (!linter) {
     throw new Error('Linter is undefined. Did you call /init-linter?');
   }
-  const result = buildSourceCode(input, language);
+  const result = measurePhase('parse', () => buildSourceCode(input, language));
   if (result instanceof SourceCode) {
     return analyzeFile(result, input);
   } else {
@@ -145,11 +168,18 @@ function analyze(input: AnalysisInput, language: 'ts' | 'js'): AnalysisResponse
   }
 }
 
-function analyzeFile(sourceCode: SourceCode, input: AnalysisInput) {
+function analyzeFile(sourceCode: SourceCode, input: AnalysisInput): AnalysisResponse {
+  if (isMetricsOnly(sourceCode, input)) {
+    return analyzeMetricsOnly(sourceCode, input);
+  }
   let issues: Issue[] = [];
+  let internalResults: Map<string, unknown> = new Map();
+  let skippedRules: string[] = [];
   let parsingError: ParsingError | undefined = undefined;
   try {
-    issues = linter.analyze(sourceCode, input.filePath, input.fileType).issues;
+    ({ issues, internalResults, skippedRules } = measurePhase('lint', () =>
+      linter.analyze(sourceCode, input.filePath, input.fileType),
+    ));
   } catch (e) {
     // turns exceptions from TypeScript compiler into "parsing" errors
     if (e.stack.indexOf('typescript.js:') > -1) {
@@ -158,28 +188,81 @@ function analyzeFile(sourceCode: SourceCode, input: AnalysisInput) {
       throw e;
     }
   }
-  // this is invoked for side-effect also for SonarLint, it removes cognitive complexity pseudo-issue which is used
-  // for the metric
-  const cognitiveComplexityMetric = getCognitiveComplexity(issues);
+  return measurePhase('postProcess', () =>
+    postProcess(sourceCode, input, issues, internalResults, skippedRules, parsingError),
+  );
+}
+
+function postProcess(
+  sourceCode: SourceCode,
+  input: AnalysisInput,
+  issues: Issue[],
+  internalResults: Map<string, unknown>,
+  skippedRules: string[],
+  parsingError: ParsingError | undefined,
+): AnalysisResponse {
   if (getContext().sonarlint) {
-    return { issues, parsingError, metrics: getMetricsForSonarLint(sourceCode) };
+    return {
+      issues,
+      parsingError,
+      metrics: getMetricsForSonarLint(sourceCode),
+      ...(skippedRules.length > 0 && { skippedRules }),
+    };
   } else {
+    const { highlights, metrics, cpdTokens } = getFileData(
+      sourceCode,
+      !!input.ignoreHeaderComments,
+      getCognitiveComplexity(internalResults),
+    );
     return {
       issues,
       parsingError,
-      highlightedSymbols: getHighlightedSymbols(issues),
-      highlights: getHighlighting(sourceCode).highlights,
-      metrics: getMetrics(sourceCode, !!input.ignoreHeaderComments, cognitiveComplexityMetric),
-      cpdTokens: getCpdTokens(sourceCode).cpdTokens,
+      highlightedSymbols: getHighlightedSymbols(internalResults),
+      highlights,
+      metrics,
+      cpdTokens,
+      ...(skippedRules.length > 0 && { skippedRules }),
     };
   }
 }
 
+function isMetricsOnly(sourceCode: SourceCode, input: AnalysisInput) {
+  const { metricsOnly, metricsOnlyTokens = 0 } = input;
+  return (
+    !!metricsOnly || (metricsOnlyTokens > 0 && sourceCode.ast.tokens.length > metricsOnlyTokens)
+  );
+}
+
+/**
+ * Only the metric computed by a rule is executed, no issue is reported and no highlighting is computed.
+ * CPD tokens are left out of the response when they are not requested.
+ */
+function analyzeMetricsOnly(sourceCode: SourceCode, input: AnalysisInput): AnalysisResponse {
+  let internalResults: Map<string, unknown> = new Map();
+  try {
+    ({ internalResults } = measurePhase('lint', () =>
+      linter.analyze(sourceCode, input.filePath, input.fileType, [COGNITIVE_COMPLEXITY_RULE_ID]),
+    ));
+  } catch (e) {
+    console.log(`DEBUG Failed to compute cognitive complexity of ${input.filePath}: ${e.message}`);
+  }
+  const { metricsOnlyCpd = true } = input;
+  const { metrics, cpdTokens } = measurePhase('postProcess', () =>
+    getFileData(
+      sourceCode,
+      !!input.ignoreHeaderComments,
+      getCognitiveComplexity(internalResults),
+      metricsOnlyCpd,
+    ),
+  );
+  return { issues: [], metrics, ...(metricsOnlyCpd && { cpdTokens }), metricsOnly: true };
+}
+
 // exported for testing
-export function getHighlightedSymbols(issues: Issue[]) {
-  const issue = findAndRemoveFirstIssue(issues, symbolHighlightingRuleId);
-  if (issue) {
-    return JSON.parse(issue.message);
+export function getHighlightedSymbols(internalResults: Map<string, unknown>) {
+  const highlightedSymbols = internalResults.get(symbolHighlightingRuleId);
+  if (highlightedSymbols) {
+    return highlightedSymbols as HighlightedSymbol[];
   } else {
     console.log('DEBUG Failed to retrieve symbol highlighting from analysis results');
     return [];
@@ -187,23 +270,12 @@ export function getHighlightedSymbols(issues: Issue[]) {
 }
 
 // exported for testing
-export function getCognitiveComplexity(issues: Issue[]) {
-  const issue = findAndRemoveFirstIssue(issues, COGNITIVE_COMPLEXITY_RULE_ID);
-  if (issue && !isNaN(Number(issue.message))) {
-    return Number(issue.message);
+export function getCognitiveComplexity(internalResults: Map<string, unknown>) {
+  const complexity = internalResults.get(COGNITIVE_COMPLEXITY_RULE_ID);
+  if (typeof complexity === 'number' && !isNaN(complexity)) {
+    return complexity;
   } else {
     console.log('DEBUG Failed to retrieve cognitive complexity metric from analysis results');
     return 0;
   }
 }
-
-function findAndRemoveFirstIssue(issues: Issue[], ruleId: string) {
-  for (const issue of issues) {
-    if (issue.ruleId === ruleId) {
-      const index = issues.indexOf(issue);
-      issues.splice(index, 1);
-      return issue;
-    }
-  }
-  return undefined;
-}
@@ -0,0 +1,120 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as ts from 'typescript';
+
+/**
+ * Customizations of the hosts of the programs created by typescript-eslint.
+ *
+ * typescript-eslint doesn't allow to provide the hosts of its programs. It creates watch programs from a
+ * watch compiler host built with 'ts.createWatchCompilerHost', and each watch program builds its compiler
+ * host with the internal 'ts.createCompilerHostFromProgramHost'. Both functions are looked up on the
+ * 'typescript' module object at each call: they are replaced once by functions applying, in registration
+ * order, the hooks registered by name by each feature.
+ */
+
+export type WatchCompilerHostHook = (host: ts.WatchCompilerHost<any>) => void;
+
+export type CompilerHostHook = (
+  compilerHost: ts.CompilerHost,
+  programHost: ts.ProgramHost<any>,
+  getCompilerOptions: () => ts.CompilerOptions,
+) => void;
+
+type CreateCompilerHostFromProgramHost = (
+  host: ts.ProgramHost<any>,
+  getCompilerOptions: () => ts.CompilerOptions,
+  ...args: any[]
+) => ts.CompilerHost;
+
+type TypeScriptModule = {
+  createWatchCompilerHost: typeof ts.createWatchCompilerHost;
+  // internal, not available in all versions
+  createCompilerHostFromProgramHost?: CreateCompilerHostFromProgramHost;
+};
+
+const watchCompilerHostHooks: Map<string, WatchCompilerHostHook> = new Map();
+const compilerHostHooks: Map<string, CompilerHostHook> = new Map();
+
+let originals: TypeScriptModule | undefined;
+
+export function registerWatchCompilerHostHook(name: string, hook: WatchCompilerHostHook) {
+  install();
+  watchCompilerHostHooks.set(name, hook);
+}
+
+/**
+ * Returns false when the compiler hosts of watch programs can't be customized with this version of TypeScript
+ */
+export function registerCompilerHostHook(name: string, hook: CompilerHostHook) {
+  install();
+  if (!originals!.createCompilerHostFromProgramHost) {
+    return false;
+  }
+  compilerHostHooks.set(name, hook);
+  return true;
+}
+
+/**
+ * Removes the hooks registered with the name, the 'typescript' module is restored once no hook is left
+ */
+export function unregisterHostHooks(name: string) {
+  watchCompilerHostHooks.delete(name);
+  compilerHostHooks.delete(name);
+  if (watchCompilerHostHooks.size === 0 && compilerHostHooks.size === 0) {
+    uninstallHostHooks();
+  }
+}
+
+export function uninstallHostHooks() {
+  watchCompilerHostHooks.clear();
+  compilerHostHooks.clear();
+  if (originals) {
+    const typescript: TypeScriptModule = require('typescript');
+    typescript.createWatchCompilerHost = originals.createWatchCompilerHost;
+    typescript.createCompilerHostFromProgramHost = originals.createCompilerHostFromProgramHost;
+    originals = undefined;
+  }
+}
+
+function install() {
+  if (originals) {
+    return;
+  }
+  const typescript: TypeScriptModule = require('typescript');
+  originals = {
+    createWatchCompilerHost: typescript.createWatchCompilerHost,
+    createCompilerHostFromProgramHost: typescript.createCompilerHostFromProgramHost,
+  };
+  const createWatchCompilerHost: (...args: any[]) => ts.WatchCompilerHost<any> =
+    originals.createWatchCompilerHost;
+  typescript.createWatchCompilerHost = ((...args: any[]) => {
+    const host = createWatchCompilerHost(...args);
+    watchCompilerHostHooks.forEach(hook => hook(host));
+    return host;
+  }) as typeof ts.createWatchCompilerHost;
+  const createCompilerHost = originals.createCompilerHostFromProgramHost;
+  if (createCompilerHost) {
+    typescript.createCompilerHostFromProgramHost = (host, getCompilerOptions, ...args) => {
+      const compilerHost = createCompilerHost(host, getCompilerOptions, ...args);
+      compilerHostHooks.forEach(hook => hook(compilerHost, host, getCompilerOptions));
+      return compilerHost;
+    };
+  }
+}
@@ -21,6 +21,15 @@ interface Context {
   workDir: string;
   shouldUseTypeScriptParserForJS: boolean;
   sonarlint: boolean;
+  // time budgets in seconds for the rules verifying a file, 0 meaning unlimited
+  fileTimeBudget?: number;
+  ruleTimeBudget?: number;
+  // accumulate the time spent by each rule during the analysis
+  profileRules?: boolean;
+  // record a CPU profile of the whole run in the working directory
+  cpuProfile?: boolean;
+  // write a heap snapshot when used heap exceeds this fraction of the heap limit, 0 meaning never
+  heapSnapshotThreshold?: number;
 }
 
 let context: Context;
@@ -0,0 +1,198 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as ts from 'typescript';
+import * as v8 from 'v8';
+import { CompilerHostHook, registerCompilerHostHook, unregisterHostHooks } from './compiler-hosts';
+
+/**
+ * Maximum accumulated length of source texts kept in the registry
+ */
+const DEFAULT_MAX_TEXT_SIZE = 64 * 1024 * 1024;
+
+/**
+ * Fraction of the Node.js heap limit above which registry entries are evicted
+ */
+const MEMORY_PRESSURE_THRESHOLD = 0.7;
+
+type GetSourceFile = ts.CompilerHost['getSourceFile'];
+
+/**
+ * Internal members of the 'typescript' module object
+ */
+type TypeScriptModule = {
+  sourceFileAffectingCompilerOptions?: { name: string }[];
+};
+
+/**
+ * Registry of parsed TypeScript source files shared by all the programs created by typescript-eslint.
+ *
+ * typescript-eslint caches its programs per tsconfig and these caches are cleared each time the analysis
+ * moves to a new tsconfig. Without a registry, the next program would parse again all the files it has in
+ * common with the previous ones, e.g. 'lib.*.d.ts' and '@types/*' declarations. Creating a program binds
+ * its source files and stores their module resolutions on them, so entries are keyed by file name and by
+ * the compiler options affecting source files and module resolution, like the document registry of the
+ * TypeScript language service. They are reused only when the file content is identical. The least recently
+ * used entries are evicted when the registry exceeds its size or when the heap usage is getting close to
+ * its limit.
+ */
+export class DocumentRegistry {
+  private readonly entries: Map<string, ts.SourceFile> = new Map();
+  private textSize = 0;
+
+  constructor(
+    private readonly maxTextSize = DEFAULT_MAX_TEXT_SIZE,
+    private readonly underMemoryPressure = isUnderMemoryPressure,
+  ) {}
+
+  acquire(
+    fileName: string,
+    text: string,
+    settingsKey: string,
+    create: () => ts.SourceFile | undefined,
+  ): ts.SourceFile | undefined {
+    const key = `${fileName}|${settingsKey}`;
+    const cached = this.entries.get(key);
+    if (cached) {
+      this.remove(key, cached);
+      if (cached.text === text) {
+        this.add(key, cached);
+        return cached;
+      }
+    }
+    const sourceFile = create();
+    if (sourceFile) {
+      this.add(key, sourceFile);
+      this.evict();
+    }
+    return sourceFile;
+  }
+
+  size() {
+    return this.entries.size;
+  }
+
+  clear() {
+    this.entries.clear();
+    this.textSize = 0;
+  }
+
+  private add(key: string, sourceFile: ts.SourceFile) {
+    this.entries.set(key, sourceFile);
+    this.textSize += sourceFile.text.length;
+  }
+
+  private remove(key: string, sourceFile: ts.SourceFile) {
+    this.entries.delete(key);
+    this.textSize -= sourceFile.text.length;
+  }
+
+  private evict() {
+    if (this.textSize > this.maxTextSize) {
+      this.evictUntil(() => this.textSize <= this.maxTextSize);
+    } else if (this.underMemoryPressure()) {
+      // under memory pressure we release the least recently used half of the registry at once
+      const target = Math.floor(this.entries.size / 2);
+      this.evictUntil(() => this.entries.size <= target);
+      console.log('DEBUG Evicted source files from document registry due to memory pressure');
+    }
+  }
+
+  private evictUntil(done: () => boolean) {
+    // map iteration follows insertion order, which is the order of last use
+    for (const [key, sourceFile] of this.entries) {
+      if (done()) {
+        break;
+      }
+      this.remove(key, sourceFile);
+    }
+  }
+}
+
+/**
+ * Cache for each program the key of its compilation settings
+ */
+let settingsKeys: WeakMap<ts.CompilerOptions, string> = new WeakMap();
+
+/**
+ * Returns the key of the compiler options affecting source files, their binding and module resolution:
+ * two programs with the same key can share their source files.
+ */
+export function getKeyForCompilationSettings(options: ts.CompilerOptions) {
+  let key = settingsKeys.get(options);
+  if (key === undefined) {
+    const typescript: TypeScriptModule = require('typescript');
+    const affectingOptions = typescript.sourceFileAffectingCompilerOptions || [];
+    key = JSON.stringify(affectingOptions.map(option => options[option.name]));
+    settingsKeys.set(options, key);
+  }
+  return key;
+}
+
+/**
+ * Returns a 'getSourceFile' which looks up the source files in the registry before parsing them
+ */
+export function withDocumentRegistry(
+  getSourceFile: GetSourceFile,
+  readFile: (fileName: string, encoding?: string) => string | undefined,
+  getCompilerOptions: () => ts.CompilerOptions,
+  documentRegistry: DocumentRegistry,
+): GetSourceFile {
+  return (fileName, languageVersion, onError, shouldCreateNewSourceFile) => {
+    const options = getCompilerOptions();
+    const text = readFile(fileName, options.charset);
+    if (text === undefined || shouldCreateNewSourceFile) {
+      return getSourceFile(fileName, languageVersion, onError, shouldCreateNewSourceFile);
+    }
+    return documentRegistry.acquire(fileName, text, getKeyForCompilationSettings(options), () =>
+      ts.createSourceFile(fileName, text, languageVersion),
+    );
+  };
+}
+
+/**
+ * Routes the creation of source files by the programs of typescript-eslint through the registry.
+ *
+ * The watch programs of typescript-eslint build their compiler host from their watch compiler host and
+ * their compiler options. The watch program keeps its own versioned cache on top of the 'getSourceFile'
+ * of that host.
+ */
+export function installDocumentRegistry(documentRegistry = new DocumentRegistry()) {
+  const hook: CompilerHostHook = (compilerHost, programHost, getCompilerOptions) => {
+    compilerHost.getSourceFile = withDocumentRegistry(
+      compilerHost.getSourceFile,
+      (fileName, encoding) => programHost.readFile(fileName, encoding),
+      getCompilerOptions,
+      documentRegistry,
+    );
+  };
+  if (!registerCompilerHostHook('document-registry', hook)) {
+    console.log('DEBUG Document registry is not supported by this version of TypeScript');
+  }
+}
+
+export function uninstallDocumentRegistry() {
+  unregisterHostHooks('document-registry');
+  settingsKeys = new WeakMap();
+}
+
+function isUnderMemoryPressure() {
+  const { used_heap_size, heap_size_limit } = v8.getHeapStatistics();
+  return used_heap_size > heap_size_limit * MEMORY_PRESSURE_THRESHOLD;
+}
@@ -0,0 +1,90 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { AST, SourceCode } from 'eslint';
+
+/**
+ * Cheap index of the features used by a file, computed from its tokens, which rules can require to be present
+ * in order to be applicable to the file (see 'rule-prerequisites.ts').
+ */
+export interface FileFeatures {
+  /**
+   * Names of all identifiers, including JSX ones and property names
+   */
+  identifiers: Set<string>;
+  /**
+   * Names of the modules imported with 'import' or 'require'
+   */
+  modules: Set<string>;
+  hasRegexLiteral: boolean;
+  /**
+   * Whether the file is a Vue file with a template
+   */
+  hasTemplate: boolean;
+}
+
+const featuresCache: WeakMap<AST.Program, FileFeatures> = new WeakMap();
+
+export function getFileFeatures(sourceCode: SourceCode): FileFeatures {
+  let features = featuresCache.get(sourceCode.ast);
+  if (!features) {
+    features = computeFileFeatures(sourceCode.ast.tokens);
+    features.hasTemplate = !!(sourceCode.ast as { templateBody?: unknown }).templateBody;
+    featuresCache.set(sourceCode.ast, features);
+  }
+  return features;
+}
+
+function computeFileFeatures(tokens: AST.Token[]): FileFeatures {
+  const features: FileFeatures = {
+    identifiers: new Set(),
+    modules: new Set(),
+    hasRegexLiteral: false,
+    hasTemplate: false,
+  };
+  tokens.forEach((token, index) => {
+    switch (token.type as string) {
+      case 'Identifier':
+      case 'JSXIdentifier':
+        features.identifiers.add(token.value);
+        break;
+      case 'RegularExpression':
+        features.hasRegexLiteral = true;
+        break;
+      case 'String':
+        if (isModuleName(tokens, index)) {
+          features.modules.add(token.value.substring(1, token.value.length - 1));
+        }
+        break;
+    }
+  });
+  return features;
+}
+
+/**
+ * Matches "from 'module'", "import 'module'", "require('module')" and "import('module')"
+ */
+function isModuleName(tokens: AST.Token[], index: number) {
+  const previous = tokens[index - 1]?.value;
+  if (previous === 'from' || previous === 'import') {
+    return true;
+  }
+  const callee = tokens[index - 2]?.value;
+  return previous === '(' && (callee === 'require' || callee === 'import');
+}
@@ -31,11 +31,27 @@ import { getContext } from './context';
 import { decoratePreferTemplate } from './rules/prefer-template-decorator';
 import { decorateAccessorPairs } from './rules/accessor-pairs-decorator';
 import { decorateNoRedeclare } from './rules/no-redeclare-decorator';
+import {
+  lookupEncodedMessage,
+  RuleResults,
+  startCollectingRuleResults,
+  stopCollectingRuleResults,
+} from './rule-results';
+import { getFileFeatures } from './file-features';
+import { RULE_PREREQUISITES } from './rule-prerequisites';
+import {
+  getRuleTimes,
+  startTimeBudget,
+  stopTimeBudget,
+  TimeBudget,
+  withTimeBudget,
+} from './time-budget';
+import { recordRuleTimes } from './rule-profile';
 
 /**
  * In order to overcome ESLint limitation regarding issue reporting,
  * ESLint-based rules send extra information by serializing in the issue message an object
- * having the following structure
+ * having the following structure, unless it is stored in the rule results side channel
  */
 interface EncodedMessage {
   message: string;
@@ -55,6 +71,22 @@ export class LinterWrapper {
   linter: Linter;
   linterConfig: Linter.Config;
   rules: Map<string, ESLintRule.RuleModule>;
+  /**
+   * Keys of the activated rules which have prerequisites, see 'rule-prerequisites.ts'
+   */
+  conditionalRules: string[];
+  /**
+   * Linter configurations for files on which some rules are not applicable, by keys of these rules
+   */
+  fileConfigs: Map<string, Linter.Config> = new Map();
+  /**
+   * Time budgets of rules verifying a file, undefined when unlimited and rules are not profiled
+   */
+  timeBudget: TimeBudget | undefined;
+  /**
+   * Whether the time spent by each rule is accumulated, see 'rule-profile.ts'
+   */
+  profileRules = false;
 
   /**
    * 'additionalRules' - rules used for computing metrics (incl. highlighting) when it requires access to the rule context; resulting value is encoded in the message
@@ -125,6 +157,25 @@ export class LinterWrapper {
 
     this.rules = this.linter.getRules();
     this.linterConfig = this.createLinterConfig(rules, additionalRules, environments, globals);
+    this.conditionalRules = Object.keys(this.linterConfig.rules!).filter(key =>
+      RULE_PREREQUISITES.has(key),
+    );
+
+    const fileTimeBudget = getContext()?.fileTimeBudget || 0;
+    const ruleTimeBudget = getContext()?.ruleTimeBudget || 0;
+    this.profileRules = !!getContext()?.profileRules;
+    // rule times are measured by the time budget, which is unlimited when only profiling
+    if (fileTimeBudget > 0 || ruleTimeBudget > 0 || this.profileRules) {
+      this.timeBudget = { file: fileTimeBudget * 1000, rule: ruleTimeBudget * 1000 };
+      // additional rules compute highlighting and metrics, or come from rule bundles: never skipped
+      const additionalRuleIds = new Set(additionalRules.map(rule => rule.ruleId));
+      Object.keys(this.linterConfig.rules!).forEach(key =>
+        this.linter.defineRule(
+          key,
+          withTimeBudget(key, this.rules.get(key)!, !additionalRuleIds.has(key)),
+        ),
+      );
+    }
   }
 
   createLinterConfig(
@@ -161,26 +212,89 @@ export class LinterWrapper {
     return ruleConfig;
   }
 
-  analyze(sourceCode: SourceCode, filePath: string, fileType?: string) {
-    const issues = this.linter
-      .verify(
+  /**
+   * 'ruleIds' - when defined, only these rules are executed
+   */
+  analyze(sourceCode: SourceCode, filePath: string, fileType?: string, ruleIds?: string[]) {
+    let messages: Linter.LintMessage[];
+    let ruleResults: RuleResults;
+    let skippedRules: string[] = [];
+    startCollectingRuleResults();
+    if (this.timeBudget) {
+      startTimeBudget(this.timeBudget);
+    }
+    try {
+      messages = this.linter.verify(
         sourceCode,
-        { ...this.linterConfig, settings: { fileType } },
+        {
+          ...(ruleIds ? this.getRulesConfig(ruleIds) : this.getFileConfig(sourceCode)),
+          settings: { fileType },
+        },
         {
           filename: filePath,
           allowInlineConfig: false,
         },
-      )
+      );
+    } finally {
+      ruleResults = stopCollectingRuleResults();
+      if (this.timeBudget) {
+        if (this.profileRules) {
+          recordRuleTimes(filePath, getRuleTimes());
+        }
+        skippedRules = stopTimeBudget();
+      }
+    }
+    const issues = messages
       .map(removeIrrelevantProperties)
       .map(issue => {
-        if (!issue) {
+        if (!issue || skippedRules.includes(issue.ruleId)) {
           return null;
         }
-        return decodeSonarRuntimeIssue(this.rules.get(issue.ruleId), issue);
+        return decodeSonarRuntimeIssue(this.rules.get(issue.ruleId), issue, ruleResults);
       })
       .filter((issue): issue is Issue => issue !== null)
       .map(normalizeIssueLocation);
-    return { issues };
+    return { issues, internalResults: ruleResults.internal, skippedRules };
+  }
+
+  /**
+   * Returns the linter configuration without the rules which prerequisites are not satisfied by the file,
+   * so that they are not even instantiated
+   */
+  getFileConfig(sourceCode: SourceCode) {
+    const features = getFileFeatures(sourceCode);
+    const inapplicableRules = this.conditionalRules.filter(
+      key => !RULE_PREREQUISITES.get(key)!(features),
+    );
+    if (inapplicableRules.length === 0) {
+      return this.linterConfig;
+    }
+    const cacheKey = inapplicableRules.join(',');
+    let config = this.fileConfigs.get(cacheKey);
+    if (!config) {
+      const rules = { ...this.linterConfig.rules };
+      inapplicableRules.forEach(key => delete rules[key]);
+      config = { ...this.linterConfig, rules };
+      this.fileConfigs.set(cacheKey, config);
+    }
+    return config;
+  }
+
+  /**
+   * Returns the linter configuration restricted to the given rules
+   */
+  getRulesConfig(ruleIds: string[]) {
+    const cacheKey = `only:${ruleIds.join(',')}`;
+    let config = this.fileConfigs.get(cacheKey);
+    if (!config) {
+      const rules: Linter.RulesRecord = {};
+      ruleIds
+        .filter(key => this.linterConfig.rules![key])
+        .forEach(key => (rules[key] = this.linterConfig.rules![key]));
+      config = { ...this.linterConfig, rules };
+      this.fileConfigs.set(cacheKey, config);
+    }
+    return config;
   }
 }
 
@@ -188,8 +302,13 @@ export class LinterWrapper {
 export function decodeSonarRuntimeIssue(
   ruleModule: ESLintRule.RuleModule | undefined,
   issue: Issue,
+  ruleResults?: RuleResults,
 ): Issue | null {
   if (hasSonarRuntimeOption(ruleModule, issue.ruleId)) {
+    const storedMessage = lookupEncodedMessage(ruleResults, issue.message);
+    if (storedMessage) {
+      return { ...issue, ...storedMessage };
+    }
     try {
       const encodedMessage: EncodedMessage = JSON.parse(issue.message);
       return { ...issue, ...encodedMessage };
@@ -0,0 +1,80 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { PerformanceObserver } from 'perf_hooks';
+
+/**
+ * Memory usage of the process in bytes, and garbage collections since the previous report
+ */
+export interface MemoryUsage {
+  heapUsed: number;
+  heapTotal: number;
+  rss: number;
+  external: number;
+  gcCount: number;
+  // total and longest pause in milliseconds
+  gcPause: number;
+  gcMaxPause: number;
+}
+
+let observer: PerformanceObserver | undefined;
+let gcCount = 0;
+let gcPause = 0;
+let gcMaxPause = 0;
+
+/**
+ * Starts observing garbage collections. Entries are delivered asynchronously by Node.js, so collections
+ * happening during the synchronous analysis of a file are reported with the next file.
+ */
+export function installMemoryTelemetry() {
+  if (observer) {
+    return;
+  }
+  observer = new PerformanceObserver(list => {
+    list.getEntries().forEach(entry => {
+      gcCount++;
+      gcPause += entry.duration;
+      gcMaxPause = Math.max(gcMaxPause, entry.duration);
+    });
+  });
+  observer.observe({ entryTypes: ['gc'] });
+}
+
+export function uninstallMemoryTelemetry() {
+  observer?.disconnect();
+  observer = undefined;
+  resetGcStats();
+}
+
+export function isMemoryTelemetryInstalled() {
+  return observer !== undefined;
+}
+
+export function getMemoryUsage(): MemoryUsage {
+  const { heapUsed, heapTotal, rss, external } = process.memoryUsage();
+  const usage = { heapUsed, heapTotal, rss, external, gcCount, gcPause, gcMaxPause };
+  resetGcStats();
+  return usage;
+}
+
+function resetGcStats() {
+  gcCount = 0;
+  gcPause = 0;
+  gcMaxPause = 0;
+}
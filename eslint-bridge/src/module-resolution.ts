@@ -0,0 +1,272 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as path from 'path';
+import * as fs from 'fs';
+import * as ts from 'typescript';
+import { registerWatchCompilerHostHook, unregisterHostHooks } from './compiler-hosts';
+
+/**
+ * Project-wide module resolution service.
+ *
+ * It is shared by all the TypeScript programs created during the analysis and by the rules inspecting
+ * imports, so that the resolution of a module specifier from a given directory and the lookup of the
+ * nearest package.json are done only once, whatever the number of tsconfigs. The caches assume that the
+ * file system doesn't change during the analysis: in SonarLint they are invalidated before each analysis.
+ */
+
+const DefinitelyTyped = '@types/';
+
+/**
+ * Compiler options affecting module resolution, two programs having the same values share resolutions
+ */
+const RESOLUTION_OPTIONS = [
+  'moduleResolution',
+  'module',
+  'baseUrl',
+  'paths',
+  'pathsBasePath',
+  'rootDirs',
+  'typeRoots',
+  'types',
+  'preserveSymlinks',
+  'resolveJsonModule',
+  'allowJs',
+  'noResolve',
+];
+
+const cachesByKey: Map<string, ts.ModuleResolutionCache> = new Map();
+let cachesByOptions: WeakMap<ts.CompilerOptions, ts.ModuleResolutionCache> = new WeakMap();
+
+/**
+ * Cache for each dirname the dependencies of the nearest package.json.
+ */
+const dependenciesCache: Map<string, Set<string>> = new Map();
+
+/**
+ * Cache for each program the patterns of its path mappings
+ */
+let pathMappingPatternsCache: WeakMap<ts.CompilerOptions, PathMappingPatterns> = new WeakMap();
+
+/**
+ * Canonicalizes file names like the TypeScript hosts do, so that cached resolutions are found whatever the case
+ * of the paths on case-insensitive file systems
+ */
+const getCanonicalFileName = createGetCanonicalFileName(ts.sys.useCaseSensitiveFileNames);
+
+// exported for test
+export function createGetCanonicalFileName(useCaseSensitiveFileNames: boolean) {
+  return useCaseSensitiveFileNames
+    ? (fileName: string) => fileName
+    : (fileName: string) => fileName.toLowerCase();
+}
+
+export function getModuleResolutionCache(currentDirectory: string, options: ts.CompilerOptions) {
+  let cache = cachesByOptions.get(options);
+  if (!cache) {
+    const key = resolutionCacheKey(currentDirectory, options);
+    cache = cachesByKey.get(key);
+    if (!cache) {
+      cache = ts.createModuleResolutionCache(currentDirectory, getCanonicalFileName, options);
+      cachesByKey.set(key, cache);
+    }
+    cachesByOptions.set(options, cache);
+  }
+  return cache;
+}
+
+function resolutionCacheKey(currentDirectory: string, options: ts.CompilerOptions) {
+  const relevantOptions = RESOLUTION_OPTIONS.map(option => options[option]);
+  return `${getCanonicalFileName(currentDirectory)}|${JSON.stringify(relevantOptions)}`;
+}
+
+export function resolveModuleNames(
+  moduleNames: string[],
+  containingFile: string,
+  options: ts.CompilerOptions,
+  host: ts.ModuleResolutionHost,
+  redirectedReference?: ts.ResolvedProjectReference,
+) {
+  const cache = getModuleResolutionCache(
+    host.getCurrentDirectory ? host.getCurrentDirectory() : process.cwd(),
+    options,
+  );
+  return moduleNames.map(
+    moduleName =>
+      ts.resolveModuleName(moduleName, containingFile, options, host, cache, redirectedReference)
+        .resolvedModule,
+  );
+}
+
+/**
+ * Makes the programs created by typescript-eslint resolve modules through the shared cache.
+ *
+ * Without 'resolveModuleNames' on the watch compiler host of typescript-eslint, every program would use its
+ * own resolution cache.
+ */
+export function installModuleResolutionCache() {
+  registerWatchCompilerHostHook('module-resolution', host => {
+    host.resolveModuleNames = (
+      moduleNames,
+      containingFile,
+      _reusedNames,
+      redirectedReference,
+      options,
+    ) => resolveModuleNames(moduleNames, containingFile, options, host, redirectedReference);
+  });
+}
+
+export function uninstallModuleResolutionCache() {
+  unregisterHostHooks('module-resolution');
+}
+
+/**
+ * Drops all cached resolutions, to be used when the file system may have changed since they were computed
+ */
+export function invalidateModuleResolution() {
+  cachesByKey.clear();
+  cachesByOptions = new WeakMap();
+  dependenciesCache.clear();
+  pathMappingPatternsCache = new WeakMap();
+}
+
+/**
+ * Returns the names of the packages declared as dependencies in the package.json nearest to the file.
+ * Type declaration packages ('@types/foo') are returned as the package they describe ('foo').
+ */
+export function getDependencies(fileName: string) {
+  const dirname = path.dirname(fileName);
+
+  const cached = dependenciesCache.get(dirname);
+  if (cached) {
+    return cached;
+  }
+
+  const result = new Set<string>();
+  const packageJsonPath = findPackageJson(path.resolve(dirname));
+  if (packageJsonPath !== undefined) {
+    try {
+      // remove BOM from file content before parsing
+      const content = JSON.parse(fs.readFileSync(packageJsonPath, 'utf8').replace(/^\uFEFF/, ''));
+      if (content.dependencies !== undefined) {
+        addDependencies(result, content.dependencies);
+      }
+      if (content.devDependencies !== undefined) {
+        addDependencies(result, content.devDependencies);
+      }
+      if (content.peerDependencies !== undefined) {
+        addDependencies(result, content.peerDependencies);
+      }
+    } catch {}
+  }
+
+  dependenciesCache.set(dirname, result);
+
+  return result;
+}
+
+function addDependencies(result: Set<string>, dependencies: any) {
+  Object.keys(dependencies).forEach(name =>
+    result.add(name.startsWith(DefinitelyTyped) ? name.substring(DefinitelyTyped.length) : name),
+  );
+}
+
+function findPackageJson(current: string): string | undefined {
+  const fileName = path.join(current, 'package.json');
+  if (fs.existsSync(fileName)) {
+    return fileName;
+  }
+
+  const prev: string = current;
+  current = path.dirname(current);
+
+  if (prev !== current) {
+    return findPackageJson(current);
+  }
+  return undefined;
+}
+
+/**
+ * The matching pattern part of a path mapping specified
+ * in `paths` in `tsconfig.json`.
+ */
+export interface PathMappingPattern {
+  isApplicableTo(name: string): boolean;
+}
+
+type PathMappingPatterns = PathMappingPattern[] | 'matchAll';
+
+class PathMappingNoAsteriskPattern implements PathMappingPattern {
+  constructor(private readonly value: string) {}
+  isApplicableTo(name: string): boolean {
+    return name === this.value;
+  }
+}
+
+class PathMappingSingleAsteriskPattern implements PathMappingPattern {
+  constructor(private readonly prefix: string, private readonly suffix: string) {}
+  isApplicableTo(name: string): boolean {
+    return name.startsWith(this.prefix) && name.endsWith(this.suffix);
+  }
+}
+
+const PATH_MAPPING_ASTERISK_PATTERN = /^([^*]*)\*([^*]*)$/; // matches any string with single asterisk '*'
+const PATH_MAPPING_ASTERISK_PATTERN_PREFIX_IDX = 1;
+const PATH_MAPPING_ASTERISK_PATTERN_SUFFIX_IDX = 2;
+
+/**
+ * Returns the patterns of the path mappings of the program, or 'matchAll' when a catch-all '*' mapping is defined
+ */
+export function getPathMappingPatterns(program: ts.Program | undefined): PathMappingPatterns {
+  const compilerOptions = program && program.getCompilerOptions();
+  if (!compilerOptions) {
+    return [];
+  }
+  let patterns = pathMappingPatternsCache.get(compilerOptions);
+  if (!patterns) {
+    patterns = extractPathMappingPatterns(compilerOptions);
+    pathMappingPatternsCache.set(compilerOptions, patterns);
+  }
+  return patterns;
+}
+
+function extractPathMappingPatterns(compilerOptions: ts.CompilerOptions): PathMappingPatterns {
+  const paths = compilerOptions.paths || [];
+  const pathMappingPatterns: PathMappingPattern[] = [];
+  for (const p in paths) {
+    if (p === '*') {
+      return 'matchAll';
+    } else {
+      const m = p.match(PATH_MAPPING_ASTERISK_PATTERN);
+      if (m) {
+        pathMappingPatterns.push(
+          new PathMappingSingleAsteriskPattern(
+            m[PATH_MAPPING_ASTERISK_PATTERN_PREFIX_IDX],
+            m[PATH_MAPPING_ASTERISK_PATTERN_SUFFIX_IDX],
+          ),
+        );
+      } else if (!p.includes('*')) {
+        pathMappingPatterns.push(new PathMappingNoAsteriskPattern(p));
+      } else {
+        // This case should not occur: `tsc` emits error if there is more than one asterisk
+      }
+    }
+  }
+  return pathMappingPatterns;
+}
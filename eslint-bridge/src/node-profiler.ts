@@ -0,0 +1,150 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as fs from 'fs';
+import * as inspector from 'inspector';
+import * as path from 'path';
+import * as v8 from 'v8';
+import { getContext } from './context';
+
+/**
+ * On-demand profiling of eslint-bridge, the artifacts are written to the working directory:
+ * - a V8 CPU profile ('.cpuprofile', to be opened with Chrome DevTools) for the whole run, or for
+ *   each file which analysis request asks for it
+ * - a heap snapshot ('.heapsnapshot') the first time heap usage exceeds a fraction of the heap size
+ *   limit
+ */
+
+let session: inspector.Session | undefined;
+let wholeRun = false;
+let heapSnapshotTaken = false;
+let profileCount = 0;
+
+/**
+ * Starts the CPU profile of the whole run when enabled in the context
+ */
+export function startProfilingRun() {
+  if (getContext()?.cpuProfile) {
+    wholeRun = startCpuProfile();
+  }
+}
+
+/**
+ * Stops the CPU profile of the whole run, to be called before the server stops
+ */
+export function stopProfilingRun() {
+  if (wholeRun) {
+    wholeRun = false;
+    stopCpuProfile('eslint-bridge');
+  }
+}
+
+/**
+ * Profiles the analysis of a file, unless the whole run is already profiled
+ */
+export function profileFile<T>(filePath: string, analysis: () => T): T {
+  if (wholeRun || !startCpuProfile()) {
+    return analysis();
+  }
+  try {
+    return analysis();
+  } finally {
+    stopCpuProfile(`eslint-bridge-${path.basename(filePath)}-${++profileCount}`);
+  }
+}
+
+function startCpuProfile() {
+  if (session) {
+    return false;
+  }
+  try {
+    session = new inspector.Session();
+    session.connect();
+    session.post('Profiler.enable');
+    session.post('Profiler.start');
+    return true;
+  } catch (e) {
+    console.log(`DEBUG Failed to start CPU profile: ${e.message}`);
+    session = undefined;
+    return false;
+  }
+}
+
+function stopCpuProfile(name: string) {
+  const currentSession = session;
+  if (!currentSession) {
+    return;
+  }
+  // the session is in the same thread, the callback is called before 'post' returns
+  currentSession.post('Profiler.stop', (error, result) => {
+    if (error) {
+      console.log(`DEBUG Failed to stop CPU profile: ${error.message}`);
+    } else {
+      writeArtifact(`${name}.cpuprofile`, file =>
+        fs.writeFileSync(file, JSON.stringify(result.profile)),
+      );
+    }
+    currentSession.disconnect();
+  });
+  session = undefined;
+}
+
+/**
+ * Writes a heap snapshot the first time used heap exceeds 'heapSnapshotThreshold' of the heap limit
+ */
+export function checkHeapUsage() {
+  const threshold = getContext()?.heapSnapshotThreshold || 0;
+  if (threshold <= 0 || heapSnapshotTaken) {
+    return;
+  }
+  const { used_heap_size, heap_size_limit } = v8.getHeapStatistics();
+  if (used_heap_size > threshold * heap_size_limit) {
+    heapSnapshotTaken = true;
+    console.log(
+      `WARN Node.js heap usage (${toMB(used_heap_size)} MB) exceeded ` +
+        `${Math.round(threshold * 100)}% of its limit (${toMB(heap_size_limit)} MB)`,
+    );
+    writeArtifact('eslint-bridge.heapsnapshot', file => v8.writeHeapSnapshot(file));
+  }
+}
+
+function toMB(bytes: number) {
+  return Math.round(bytes / 1024 / 1024);
+}
+
+function writeArtifact(fileName: string, write: (file: string) => void) {
+  const workDir = getContext()?.workDir;
+  if (!workDir) {
+    return;
+  }
+  const file = path.join(workDir, fileName);
+  try {
+    write(file);
+    console.log(`DEBUG Wrote ${file}`);
+  } catch (e) {
+    console.log(`DEBUG Failed to write ${file}: ${e.message}`);
+  }
+}
+
+// exported for testing
+export function resetProfiling() {
+  stopProfilingRun();
+  heapSnapshotTaken = false;
+  profileCount = 0;
+}
@@ -0,0 +1,187 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as fs from 'fs';
+import * as path from 'path';
+import { getContext } from './context';
+
+/**
+ * The ways of parsing a JavaScript file (or the script of a Vue file), in the order they are tried
+ * by default
+ */
+export type ParserStrategy = 'typescript' | 'babel-module' | 'babel-script';
+
+/**
+ * Name of the file inside the working directory where hints are persisted between analyses
+ */
+const HINTS_FILE = 'parser-hints.json';
+
+interface ParserHints {
+  files: Map<string, ParserStrategy>;
+  directories: Map<string, ParserStrategy>;
+}
+
+let hints: ParserHints | undefined;
+
+/**
+ * Returns the strategies to try for parsing the file, the most likely to succeed first.
+ *
+ * Only strategies which differ from the default one are remembered. The one which succeeded last
+ * time for the file is tried first, otherwise files with a Flow pragma are parsed with Babel first,
+ * as Flow type annotations usually make the TypeScript parser fail. Babel accepts plain JavaScript,
+ * so the TypeScript parser is never demoted for a file analyzed with tsconfigs ('inProgram'), which
+ * would lose type information. Hints of a directory only decide between the Babel modes of its
+ * files.
+ */
+export function orderParserStrategies(
+  filePath: string,
+  fileContent: string | undefined,
+  strategies: ParserStrategy[],
+  inProgram = false,
+): ParserStrategy[] {
+  const { files, directories } = getHints();
+  let ordered = strategies;
+  if (directories.get(path.dirname(filePath)) === 'babel-script') {
+    ordered = preferBabelScript(ordered);
+  }
+  let likely = files.get(filePath);
+  if (!likely && fileContent !== undefined && hasFlowPragma(fileContent)) {
+    likely = 'babel-module';
+  }
+  if (!likely || !ordered.includes(likely) || likely === ordered[0]) {
+    return ordered;
+  }
+  if (inProgram && ordered[0] === 'typescript') {
+    return likely === 'babel-script' ? preferBabelScript(ordered) : ordered;
+  }
+  return [likely, ...ordered.filter(strategy => strategy !== likely)];
+}
+
+function preferBabelScript(strategies: ParserStrategy[]): ParserStrategy[] {
+  const moduleIndex = strategies.indexOf('babel-module');
+  const scriptIndex = strategies.indexOf('babel-script');
+  if (moduleIndex < 0 || scriptIndex < moduleIndex) {
+    return strategies;
+  }
+  const result = [...strategies];
+  result[moduleIndex] = 'babel-script';
+  result[scriptIndex] = 'babel-module';
+  return result;
+}
+
+/**
+ * Remembers the strategy which succeeded for parsing the file, 'defaultStrategy' is the one tried
+ * first by default
+ */
+export function recordParserStrategy(
+  filePath: string,
+  strategy: ParserStrategy,
+  defaultStrategy: ParserStrategy,
+) {
+  const { files, directories } = getHints();
+  if (strategy === defaultStrategy) {
+    files.delete(filePath);
+  } else {
+    files.set(filePath, strategy);
+  }
+  const directory = path.dirname(filePath);
+  if (strategy === 'babel-script') {
+    directories.set(directory, strategy);
+  } else if (strategy === 'babel-module') {
+    directories.delete(directory);
+  }
+}
+
+export function saveParserHints() {
+  const context = getContext();
+  if (!hints || !context?.workDir) {
+    return;
+  }
+  try {
+    const content = {
+      files: toObject(hints.files),
+      directories: toObject(hints.directories),
+    };
+    fs.writeFileSync(path.join(context.workDir, HINTS_FILE), JSON.stringify(content));
+  } catch (e) {
+    console.log(`DEBUG Failed to save parser hints: ${e.message}`);
+  }
+}
+
+function toObject(map: Map<string, ParserStrategy>) {
+  const result: { [key: string]: ParserStrategy } = {};
+  map.forEach((value, key) => (result[key] = value));
+  return result;
+}
+
+// exported for testing
+export function resetParserHints() {
+  hints = undefined;
+}
+
+function getHints(): ParserHints {
+  if (!hints) {
+    hints = loadHints();
+  }
+  return hints;
+}
+
+function loadHints(): ParserHints {
+  const context = getContext();
+  const hintsFile = context?.workDir ? path.join(context.workDir, HINTS_FILE) : undefined;
+  if (hintsFile && fs.existsSync(hintsFile)) {
+    try {
+      const content = JSON.parse(fs.readFileSync(hintsFile, 'utf8'));
+      return {
+        files: new Map(Object.entries(content.files)),
+        directories: new Map(Object.entries(content.directories)),
+      };
+    } catch (e) {
+      console.log(`DEBUG Failed to load parser hints: ${e.message}`);
+    }
+  }
+  return { files: new Map(), directories: new Map() };
+}
+
+/**
+ * Flow pragma must be in a comment before any code, e.g. '// @flow' or '/* @flow strict *\/'
+ */
+export function hasFlowPragma(text: string) {
+  let index = 0;
+  while (index < text.length) {
+    const char = text[index];
+    if (char === ' ' || char === '\t' || char === '\n' || char === '\r') {
+      index++;
+    } else if (text.startsWith('//', index) || text.startsWith('/*', index)) {
+      const lineComment = text.startsWith('//', index);
+      const end = lineComment ? text.indexOf('\n', index) : text.indexOf('*/', index + 2);
+      const comment = text.substring(index, end < 0 ? text.length : end);
+      if (/@flow\b/.test(comment)) {
+        return true;
+      }
+      if (end < 0) {
+        return false;
+      }
+      index = lineComment ? end + 1 : end + 2;
+    } else {
+      return false;
+    }
+  }
+  return false;
+}
@@ -23,7 +23,8 @@ import { Linter, SourceCode } from 'eslint';
 import * as VueJS from 'vue-eslint-parser';
 import * as tsEslintParser from '@typescript-eslint/parser';
 import { getContext } from './context';
-import { AnalysisInput } from './analyzer';
+import { AnalysisInput, ParsingError } from './analyzer';
+import { orderParserStrategies, ParserStrategy, recordParserStrategy } from './parser-hints';
 
 const babelParser = { parse: babel.parseForESLint, parser: '@babel/eslint-parser' };
 const vueParser = { parse: VueJS.parseForESLint, parser: 'vue-eslint-parser' };
@@ -36,58 +37,74 @@ function shouldTryTsParser() {
 
 export function buildSourceCode(input: AnalysisInput, language: 'ts' | 'js') {
   const vue = input.filePath.endsWith('.vue');
-  let options, result;
 
   // ts (including .vue)
   if (language === 'ts') {
-    options = buildParsingOptions(input, false, vue ? tsParser.parser : undefined);
+    const options = buildParsingOptions(input, false, vue ? tsParser.parser : undefined);
     const parse = vue ? vueParser.parse : tsParser.parse;
     return parseForEslint(input, parse, options);
   }
 
-  const tryTsParser = shouldTryTsParser();
+  const strategies: ParserStrategy[] = vue
+    ? ['typescript', 'babel-module']
+    : ['typescript', 'babel-module', 'babel-script'];
+  if (!shouldTryTsParser()) {
+    strategies.shift();
+  }
+  return buildSourceCodeWithStrategies(withFileContent(input), strategies, vue);
+}
 
-  // .vue
-  if (vue) {
-    if (tryTsParser) {
-      options = buildParsingOptions(input, false, tsParser.parser);
-      result = parseForEslint(input, vueParser.parse, options);
-      if (result instanceof SourceCode) {
-        return result;
-      }
+/**
+ * Tries the parsing strategies until one succeeds, starting with the most likely to succeed
+ */
+function buildSourceCodeWithStrategies(
+  input: AnalysisInput,
+  strategies: ParserStrategy[],
+  vue: boolean,
+) {
+  const errors: Map<ParserStrategy, ParsingError> = new Map();
+  const inProgram = !!input.tsConfigs?.length;
+  const { filePath, fileContent } = input;
+  for (const strategy of orderParserStrategies(filePath, fileContent, strategies, inProgram)) {
+    const result = parseWithStrategy(input, strategy, vue);
+    if (result instanceof SourceCode) {
+      recordParserStrategy(input.filePath, strategy, strategies[0]);
+      return result;
+    }
+    if (strategy === 'typescript') {
       console.log(
         `DEBUG Failed to parse ${input.filePath} with TypeScript compiler: ${result.message}`,
       );
     }
-    options = buildParsingOptions(input, true, babelParser.parser);
-    return parseForEslint(input, vueParser.parse, options);
+    errors.set(strategy, result);
   }
+  // prefer displaying parsing error as module if parsing as script also failed
+  return errors.get('babel-module')!;
+}
 
-  // js
-  return buildSourceCodeForJs(input, tryTsParser);
+function parseWithStrategy(input: AnalysisInput, strategy: ParserStrategy, vue: boolean) {
+  if (strategy === 'typescript') {
+    const options = buildParsingOptions(input, false, vue ? tsParser.parser : undefined);
+    return parseForEslint(input, vue ? vueParser.parse : tsParser.parse, options);
+  }
+  const sourceType = strategy === 'babel-script' ? 'script' : 'module';
+  const parserOption = vue ? babelParser.parser : undefined;
+  const options = buildParsingOptions(input, true, parserOption, sourceType);
+  return parseForEslint(input, vue ? vueParser.parse : babelParser.parse, options);
 }
 
-function buildSourceCodeForJs(input: AnalysisInput, tryTsParser: boolean) {
-  if (tryTsParser) {
-    const result = parseForEslint(input, tsParser.parse, buildParsingOptions(input, false));
-    if (result instanceof SourceCode) {
-      return result;
-    }
-    console.log(
-      `DEBUG Failed to parse ${input.filePath} with TypeScript compiler: ${result.message}`,
-    );
+/**
+ * Reads the file content once for all parsing attempts, failure to read it is reported by parsing
+ */
+function withFileContent(input: AnalysisInput): AnalysisInput {
+  if (input.fileContent) {
+    return input;
   }
-  const resultAsModule = parseForEslint(input, babelParser.parse, buildParsingOptions(input, true));
-  if (resultAsModule instanceof SourceCode) {
-    return resultAsModule;
+  try {
+    return { ...input, fileContent: getFileContent(input.filePath) };
+  } catch {
+    return input;
   }
-  const resultAsScript = parseForEslint(
-    input,
-    babelParser.parse,
-    buildParsingOptions(input, true, undefined, 'script'),
-  );
-  // prefer displaying parsing error as module if parsing as script also failed
-  return resultAsScript instanceof SourceCode ? resultAsScript : resultAsModule;
 }
 
 function parseForEslint(
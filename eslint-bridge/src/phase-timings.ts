@@ -0,0 +1,99 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { performance } from 'perf_hooks';
+import { registerWatchCompilerHostHook, unregisterHostHooks } from './compiler-hosts';
+
+/**
+ * Time spent in each phase of the analysis of a file, in milliseconds. The time of a phase nested
+ * in another one is not counted in the outer phase, e.g. 'parse' doesn't include 'program'.
+ */
+export interface PhaseTimings {
+  parse: number;
+  // creation or update of the TypeScript program, which happens while parsing with type information
+  program: number;
+  lint: number;
+  // metrics, highlighting and CPD tokens
+  postProcess: number;
+  serialize: number;
+}
+
+export type Phase = keyof PhaseTimings;
+
+interface RunningPhase {
+  start: number;
+  nested: number;
+}
+
+let current: PhaseTimings | undefined;
+const running: RunningPhase[] = [];
+
+export function startPhaseTimings() {
+  current = { parse: 0, program: 0, lint: 0, postProcess: 0, serialize: 0 };
+  running.length = 0;
+}
+
+/**
+ * Stops measuring and returns the timings since last start, undefined when not started
+ */
+export function stopPhaseTimings() {
+  const timings = current;
+  current = undefined;
+  running.length = 0;
+  return timings;
+}
+
+/**
+ * Adds the time spent executing 'fn' to the phase, when timings are being measured
+ */
+export function measurePhase<T>(phase: Phase, fn: () => T): T {
+  if (!current) {
+    return fn();
+  }
+  const timings = current;
+  const runningPhase = { start: performance.now(), nested: 0 };
+  running.push(runningPhase);
+  try {
+    return fn();
+  } finally {
+    running.pop();
+    const elapsed = performance.now() - runningPhase.start;
+    timings[phase] += elapsed - runningPhase.nested;
+    const outer = running[running.length - 1];
+    if (outer) {
+      outer.nested += elapsed;
+    }
+  }
+}
+
+/**
+ * Measures the 'program' phase: typescript-eslint creates and updates its programs through
+ * the 'createProgram' of its watch compiler host
+ */
+export function installProgramTimings() {
+  registerWatchCompilerHostHook('program-timings', host => {
+    const createProgram = host.createProgram;
+    host.createProgram = (...createArgs) =>
+      measurePhase('program', () => createProgram(...createArgs));
+  });
+}
+
+export function uninstallProgramTimings() {
+  unregisterHostHooks('program-timings');
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { FileFeatures } from './file-features';
+
+/**
+ * Condition that a file must satisfy for a rule to possibly raise issues on it. It must be conservative:
+ * a rule is not executed at all on files not satisfying it.
+ */
+type Prerequisite = (features: FileFeatures) => boolean;
+
+/**
+ * Regular expressions are checked when they are literals, built with 'RegExp' or implicitly built
+ * from strings passed to string methods.
+ */
+const REGEX_IDENTIFIERS = ['RegExp', 'match', 'matchAll', 'search', 'replace', 'replaceAll'];
+
+const usesRegex: Prerequisite = features =>
+  features.hasRegexLiteral || REGEX_IDENTIFIERS.some(name => features.identifiers.has(name));
+
+/**
+ * Express applications are either instantiated from the 'express' module or injected as 'app' parameter
+ */
+const usesExpress: Prerequisite = features =>
+  features.modules.has('express') || features.identifiers.has('app');
+
+function importsAnyOf(...modules: string[]): Prerequisite {
+  return features => modules.some(module => features.modules.has(module));
+}
+
+function usesAnyOf(...identifiers: string[]): Prerequisite {
+  return features => identifiers.some(identifier => features.identifiers.has(identifier));
+}
+
+const REGEX_RULES = [
+  'anchor-precedence',
+  'concise-regex',
+  'duplicates-in-character-class',
+  'empty-string-repetition',
+  'existing-groups',
+  'no-empty-after-reluctant',
+  'no-empty-alternatives',
+  'no-empty-group',
+  'regex-complexity',
+  'single-character-alternation',
+  'slow-regex',
+  'sonar-no-control-regex',
+  'sonar-no-misleading-character-class',
+  'sonar-no-regex-spaces',
+  'unicode-aware-regex',
+  'unused-named-groups',
+];
+
+const EXPRESS_MIDDLEWARE_RULES = [
+  'certificate-transparency',
+  'content-security-policy',
+  'frame-ancestors',
+  'no-mime-sniff',
+  'no-mixed-content',
+  'no-referrer-policy',
+  'strict-transport-security',
+];
+
+/**
+ * Prerequisites of rules, by rule key
+ */
+export const RULE_PREREQUISITES: Map<string, Prerequisite> = new Map([
+  ...REGEX_RULES.map(key => [key, usesRegex] as [string, Prerequisite]),
+  ...EXPRESS_MIDDLEWARE_RULES.map(key => [key, usesExpress] as [string, Prerequisite]),
+  ['x-powered-by', importsAnyOf('express')],
+  ['content-length', importsAnyOf('formidable', 'multer', 'body-parser')],
+  ['file-uploads', importsAnyOf('formidable', 'multer')],
+  [
+    'no-vue-bypass-sanitization',
+    features =>
+      features.hasTemplate || usesAnyOf('domPropsInnerHTML', 'domProps', 'attrs')(features),
+  ],
+]);
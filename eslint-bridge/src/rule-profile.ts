@@ -0,0 +1,60 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/**
+ * Time spent by a rule during the analysis, in milliseconds
+ */
+export interface RuleProfile {
+  ruleId: string;
+  time: number;
+  files: number;
+  slowestFile: string;
+  slowestFileTime: number;
+}
+
+const profiles: Map<string, RuleProfile> = new Map();
+
+/**
+ * Accumulates the time spent by each rule on the file
+ */
+export function recordRuleTimes(filePath: string, ruleTimes: Map<string, number>) {
+  ruleTimes.forEach((time, ruleId) => {
+    const profile = profiles.get(ruleId);
+    if (!profile) {
+      const slowestFile = filePath;
+      profiles.set(ruleId, { ruleId, time, files: 1, slowestFile, slowestFileTime: time });
+      return;
+    }
+    profile.time += time;
+    profile.files++;
+    if (time > profile.slowestFileTime) {
+      profile.slowestFile = filePath;
+      profile.slowestFileTime = time;
+    }
+  });
+}
+
+/**
+ * Returns the profiles of the rules since the previous call, the slowest rule first
+ */
+export function collectRuleProfiles(): RuleProfile[] {
+  const result = [...profiles.values()].sort((a, b) => b.time - a.time);
+  profiles.clear();
+  return result;
+}
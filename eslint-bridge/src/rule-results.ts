@@ -0,0 +1,83 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { EncodedMessage } from 'eslint-plugin-sonarjs/lib/utils/locations';
+
+/**
+ * Side channel for the structured results of rules, available while the linter verifies a file.
+ *
+ * ESLint rules can only communicate through issue messages, so rules needing to report more than a message
+ * (secondary locations, cost) or internal rules computing metrics and highlighting used to serialize their
+ * result into the message. While a file is verified by 'LinterWrapper', results are kept here as objects
+ * instead, and issue messages only reference them. Outside of it, e.g. in rule tests, nothing is collected
+ * and rules fall back to serialization.
+ */
+export interface RuleResults {
+  /**
+   * Results of internal rules, by rule id
+   */
+  internal: Map<string, unknown>;
+  encodedMessages: EncodedMessage[];
+}
+
+/**
+ * Prefix of the issue messages referencing an encoded message, followed by its index
+ */
+const ENCODED_MESSAGE_REFERENCE = '\u0000sonar-runtime:';
+
+let current: RuleResults | undefined;
+
+export function startCollectingRuleResults() {
+  current = { internal: new Map(), encodedMessages: [] };
+}
+
+export function stopCollectingRuleResults() {
+  const results = current || { internal: new Map(), encodedMessages: [] };
+  current = undefined;
+  return results;
+}
+
+export function isCollectingRuleResults() {
+  return current !== undefined;
+}
+
+export function storeInternalResult(ruleId: string, result: unknown) {
+  current?.internal.set(ruleId, result);
+}
+
+/**
+ * Returns the issue message referencing the encoded message, or 'undefined' when results are not collected
+ */
+export function storeEncodedMessage(encodedMessage: EncodedMessage): string | undefined {
+  if (!current) {
+    return undefined;
+  }
+  current.encodedMessages.push(encodedMessage);
+  return `${ENCODED_MESSAGE_REFERENCE}${current.encodedMessages.length - 1}`;
+}
+
+export function lookupEncodedMessage(
+  results: RuleResults | undefined,
+  message: string,
+): EncodedMessage | undefined {
+  if (!results || !message.startsWith(ENCODED_MESSAGE_REFERENCE)) {
+    return undefined;
+  }
+  return results.encodedMessages[Number(message.substring(ENCODED_MESSAGE_REFERENCE.length))];
+}
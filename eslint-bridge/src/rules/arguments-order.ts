@@ -33,6 +33,7 @@ import {
   getTypeAsString,
   resolveIdentifiers,
 } from '../utils';
+import { storeEncodedMessage } from '../rule-results';
 
 interface FunctionSignature {
   params: Array<string | undefined>;
@@ -210,7 +211,7 @@ export const rule: Rule.RuleModule = {
       };
 
       context.report({
-        message: JSON.stringify(encodedMessage),
+        message: storeEncodedMessage(encodedMessage) ?? JSON.stringify(encodedMessage),
         loc: getParametersClauseLocation(node.arguments),
       });
     }
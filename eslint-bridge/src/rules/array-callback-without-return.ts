@@ -25,6 +25,7 @@ import { TSESTree } from '@typescript-eslint/experimental-utils';
 import { getMainFunctionTokenLocation } from 'eslint-plugin-sonarjs/lib/utils/locations';
 import { Rule as Rule1 } from 'eslint-plugin-sonarjs/lib/utils/types';
 import {
+  getTypeFromTreeNode,
   isArray,
   RequiredParserServices,
   isRequiredParserServices,
@@ -47,9 +48,7 @@ const methodsWithCallback = [
 
 function hasCallBackWithoutReturn(argument: estree.Node, services: RequiredParserServices) {
   const checker = services.program.getTypeChecker();
-  const type = checker.getTypeAtLocation(
-    services.esTreeNodeToTSNodeMap.get(argument as TSESTree.Node),
-  );
+  const type = getTypeFromTreeNode(argument, services);
   const signatures = type.getCallSignatures();
   return (
     signatures.length > 0 &&
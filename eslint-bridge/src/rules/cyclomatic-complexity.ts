@@ -29,6 +29,7 @@ import {
 import { Rule as Rule1 } from 'eslint-plugin-sonarjs/lib/utils/types';
 import { FunctionNodeType, isFunctionNode, childrenOf, getParent } from '../utils';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
+import { storeEncodedMessage } from '../rule-results';
 
 export const rule: Rule.RuleModule = {
   meta: {
@@ -104,7 +105,7 @@ function toEncodedMessage(
     cost: complexity - threshold,
     secondaryLocations: tokens.map(toSecondaryLocation),
   };
-  return JSON.stringify(encodedMessage);
+  return storeEncodedMessage(encodedMessage) ?? JSON.stringify(encodedMessage);
 }
 
 function toSecondaryLocation(token: ComplexityToken): IssueLocation {
@@ -0,0 +1,391 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { Rule, Scope, SourceCode } from 'eslint';
+import * as estree from 'estree';
+import { TSESTree } from '@typescript-eslint/experimental-utils';
+import { isAssignmentExpression } from 'eslint-plugin-sonarjs/lib/utils/nodes';
+import { LiveVariables, lva, ReferenceLike } from './lva';
+import { reachingDefinitions, ReachingDefinitions } from './reachingDefinitions';
+import CodePath = Rule.CodePath;
+import CodePathSegment = Rule.CodePathSegment;
+import Variable = Scope.Variable;
+
+const dataflows = new WeakMap<SourceCode, Dataflow>();
+
+/**
+ * Returns the dataflow of the file being analyzed, shared by all the rules of the analysis.
+ *
+ * Each rule asking for it must spread 'dataflow.listeners(context)' into its own listeners, so that
+ * references are collected even when it is the only such rule enabled, and must call
+ * 'dataflow.release()' at 'Program:exit' once it's done with the results.
+ */
+export function getDataflow(context: Rule.RuleContext) {
+  const sourceCode = context.getSourceCode();
+  let dataflow = dataflows.get(sourceCode);
+  if (!dataflow) {
+    dataflow = new Dataflow(sourceCode);
+    dataflows.set(sourceCode, dataflow);
+  }
+  dataflow.consumers++;
+  return dataflow;
+}
+
+/**
+ * Collects once per file the references in the order they are evaluated for each code path segment,
+ * and computes lazily the analyses based on them: reaching definitions and live variables are then
+ * computed once for all the functions of the file, whatever the number of rules using them.
+ *
+ * ESLint emits an event to all the rules listening to it before emitting the next one, so when
+ * several rules forward the same event to the collector, only the first call is taken into account.
+ */
+export class Dataflow {
+  consumers = 0;
+  private readonly codePathStack: CodePathContext[] = [];
+  private readonly segments = new Map<string, SegmentReferences>();
+  private lastEvent: { name: string; target: unknown } | undefined;
+  private reachingDefinitionsMap: Map<string, ReachingDefinitions> | undefined;
+  private liveVariablesMap: Map<string, LiveVariables> | undefined;
+
+  /**
+   * map from Variable to CodePath ids where variable is used as an identifier
+   */
+  readonly variableUsages = new Map<Variable, Set<string>>();
+
+  /**
+   * map from Variable to CodePath ids where variable is used, including JSX identifiers
+   */
+  readonly variableUsagesWithJSX = new Map<Variable, Set<string>>();
+
+  /**
+   * variables which are read at least once, including from JSX identifiers
+   */
+  readonly readVariables = new Set<Variable>();
+
+  constructor(private readonly sourceCode: SourceCode) {}
+
+  listeners(context: Rule.RuleContext): Rule.RuleListener {
+    return {
+      ':matches(AssignmentExpression, VariableDeclarator[init])': (node: estree.Node) => {
+        this.handle('assignment', node, () =>
+          peek(this.codePathStack).assignmentStack.push(
+            new AssignmentContext(node as AssignmentLike),
+          ),
+        );
+      },
+      ':matches(AssignmentExpression, VariableDeclarator[init]):exit': (node: estree.Node) => {
+        this.handle('assignment:exit', node, () => {
+          const assignment = peek(this.codePathStack).assignmentStack.pop()!;
+          assignment.rhs.forEach(r => this.processReference(r));
+          assignment.lhs.forEach(r => this.processReference(r));
+        });
+      },
+      Identifier: (node: estree.Node) => {
+        this.handle('identifier', node, () => {
+          if (!isEnumConstant(context)) {
+            const { ref, variable } = resolveReference(context, node as estree.Identifier);
+            this.checkIdentifierUsage(ref, variable, false);
+          }
+        });
+      },
+      JSXIdentifier: (node: unknown) => {
+        this.handle('jsxIdentifier', node, () => {
+          const { ref, variable } = resolveJSXReference(context, node as TSESTree.JSXIdentifier);
+          this.checkIdentifierUsage(ref, variable, true);
+        });
+      },
+      onCodePathSegmentStart: (segment: CodePathSegment) => {
+        this.handle('segmentStart', segment, () =>
+          this.segments.set(segment.id, { segment, references: new Set() }),
+        );
+      },
+      onCodePathStart: (codePath: CodePath) => {
+        this.handle('codePathStart', codePath, () =>
+          this.codePathStack.push(new CodePathContext(codePath)),
+        );
+      },
+      onCodePathEnd: (codePath: CodePath) => {
+        this.handle('codePathEnd', codePath, () => this.codePathStack.pop());
+      },
+    };
+  }
+
+  /**
+   * Reaching definitions of all the segments of the file, computed on first call. JSX identifiers
+   * are not taken into account as they can't be written.
+   */
+  reachingDefinitions() {
+    if (!this.reachingDefinitionsMap) {
+      const reachingDefinitionsMap = new Map<string, ReachingDefinitions>();
+      this.segments.forEach(({ segment, references }) => {
+        const reachingDefs = new ReachingDefinitions(segment);
+        references.forEach(ref => {
+          if (!(ref instanceof JSXReference)) {
+            reachingDefs.add(ref as Scope.Reference);
+          }
+        });
+        reachingDefinitionsMap.set(segment.id, reachingDefs);
+      });
+      reachingDefinitions(reachingDefinitionsMap);
+      this.reachingDefinitionsMap = reachingDefinitionsMap;
+    }
+    return this.reachingDefinitionsMap;
+  }
+
+  /**
+   * Live variables of all the segments of the file, computed on first call
+   */
+  liveVariables() {
+    if (!this.liveVariablesMap) {
+      const liveVariablesMap = new Map<string, LiveVariables>();
+      this.segments.forEach(({ segment, references }) => {
+        const liveVariables = new LiveVariables(segment);
+        references.forEach(ref => liveVariables.add(ref));
+        liveVariablesMap.set(segment.id, liveVariables);
+      });
+      lva(liveVariablesMap);
+      this.liveVariablesMap = liveVariablesMap;
+    }
+    return this.liveVariablesMap;
+  }
+
+  /**
+   * Drops the collected references and computed analyses once all the rules using them are done
+   */
+  release() {
+    this.consumers--;
+    if (this.consumers <= 0) {
+      this.segments.clear();
+      this.variableUsages.clear();
+      this.variableUsagesWithJSX.clear();
+      this.readVariables.clear();
+      this.reachingDefinitionsMap = undefined;
+      this.liveVariablesMap = undefined;
+      dataflows.delete(this.sourceCode);
+    }
+  }
+
+  private handle(name: string, target: unknown, handler: () => void) {
+    if (this.lastEvent?.name === name && this.lastEvent.target === target) {
+      return;
+    }
+    this.lastEvent = { name, target };
+    handler();
+  }
+
+  private checkIdentifierUsage(
+    ref: ReferenceLike | null | undefined,
+    variable: Variable | null | undefined,
+    isJSX: boolean,
+  ) {
+    if (ref) {
+      this.processReference(ref);
+      if (variable && ref.isRead()) {
+        this.readVariables.add(variable);
+      }
+    }
+    if (variable) {
+      const codePathId = peek(this.codePathStack).codePath.id;
+      if (!isJSX) {
+        addUsage(this.variableUsages, variable, codePathId);
+      }
+      addUsage(this.variableUsagesWithJSX, variable, codePathId);
+    }
+  }
+
+  private processReference(ref: ReferenceLike) {
+    const assignmentStack = peek(this.codePathStack).assignmentStack;
+    if (assignmentStack.length > 0) {
+      const assignment = peek(assignmentStack);
+      assignment.add(ref);
+    } else if (ref.resolved) {
+      peek(this.codePathStack).codePath.currentSegments.forEach(segment => {
+        this.referencesForSegment(segment).add(ref);
+      });
+    }
+  }
+
+  private referencesForSegment(segment: CodePathSegment) {
+    let segmentReferences = this.segments.get(segment.id);
+    if (!segmentReferences) {
+      segmentReferences = { segment, references: new Set() };
+      this.segments.set(segment.id, segmentReferences);
+    }
+    return segmentReferences.references;
+  }
+}
+
+interface SegmentReferences {
+  segment: CodePathSegment;
+  /**
+   * references in order they are evaluated, set in JS maintains insertion order
+   */
+  references: Set<ReferenceLike>;
+}
+
+function addUsage(usages: Map<Variable, Set<string>>, variable: Variable, codePathId: string) {
+  const codePathIds = usages.get(variable);
+  if (codePathIds) {
+    codePathIds.add(codePathId);
+  } else {
+    usages.set(variable, new Set<string>([codePathId]));
+  }
+}
+
+function isEnumConstant(context: Rule.RuleContext) {
+  return (context.getAncestors() as TSESTree.Node[]).some(n => n.type === 'TSEnumDeclaration');
+}
+
+export function resolveReference(context: Rule.RuleContext, node: estree.Identifier) {
+  return resolveReferenceRecursively(node, context.getScope());
+}
+
+function resolveReferenceRecursively(
+  node: estree.Identifier,
+  scope: Scope.Scope | null,
+): { ref: Scope.Reference | null; variable: Scope.Variable | null } {
+  if (scope === null) {
+    return { ref: null, variable: null };
+  }
+  const ref = scope.references.find(r => r.identifier === node);
+  if (ref) {
+    return { ref, variable: ref.resolved };
+  } else {
+    // if it's not a reference, it can be just declaration without initializer
+    const variable = scope.variables.find(v => v.defs.find(def => def.name === node));
+    if (variable) {
+      return { ref: null, variable };
+    }
+    // in theory we only need 1-level recursion, only for switch expression, which is likely a bug in eslint
+    // generic recursion is used for safety & readability
+    return resolveReferenceRecursively(node, scope.upper);
+  }
+}
+
+function resolveJSXReference(
+  context: Rule.RuleContext,
+  node: TSESTree.JSXIdentifier,
+): { ref?: ReferenceLike; variable?: Scope.Variable | null } {
+  if (isJSXAttributeName(node)) {
+    return {};
+  }
+  const jsxReference = new JSXReference(node, context.getScope());
+  return { ref: jsxReference, variable: jsxReference.resolved };
+}
+
+function isJSXAttributeName(node: TSESTree.JSXIdentifier) {
+  const parent = node.parent;
+  return parent && parent.type === 'JSXAttribute' && parent.name === node;
+}
+
+class CodePathContext {
+  codePath: CodePath;
+  assignmentStack: AssignmentContext[] = [];
+
+  constructor(codePath: CodePath) {
+    this.codePath = codePath;
+  }
+}
+
+type AssignmentLike = TSESTree.AssignmentExpression | TSESTree.VariableDeclarator;
+
+class AssignmentContext {
+  node: AssignmentLike;
+
+  constructor(node: AssignmentLike) {
+    this.node = node;
+  }
+
+  lhs = new Set<ReferenceLike>();
+  rhs = new Set<ReferenceLike>();
+
+  isRhs(node: TSESTree.Node) {
+    return isAssignmentExpression(this.node) ? this.node.right === node : this.node.init === node;
+  }
+
+  isLhs(node: TSESTree.Node) {
+    return isAssignmentExpression(this.node) ? this.node.left === node : this.node.id === node;
+  }
+
+  add(ref: ReferenceLike) {
+    let parent = ref.identifier as TSESTree.Node | undefined;
+    while (parent) {
+      if (this.isLhs(parent)) {
+        this.lhs.add(ref);
+        break;
+      }
+      if (this.isRhs(parent)) {
+        this.rhs.add(ref);
+        break;
+      }
+      parent = parent.parent;
+    }
+    if (parent === null) {
+      throw new Error('failed to find assignment lhs/rhs');
+    }
+  }
+}
+
+class JSXReference implements ReferenceLike {
+  from: Scope.Scope;
+  identifier: TSESTree.JSXIdentifier;
+  init = false;
+  resolved: Scope.Variable | null;
+  writeExpr: estree.Node | null = null;
+
+  constructor(node: TSESTree.JSXIdentifier, scope: Scope.Scope) {
+    this.from = scope;
+    this.identifier = node;
+    this.resolved = findJSXVariableInScope(node, scope);
+  }
+
+  isRead(): boolean {
+    return true;
+  }
+
+  isReadOnly(): boolean {
+    return true;
+  }
+
+  isReadWrite(): boolean {
+    return false;
+  }
+
+  isWrite(): boolean {
+    return false;
+  }
+
+  isWriteOnly(): boolean {
+    return false;
+  }
+}
+
+function findJSXVariableInScope(
+  node: TSESTree.JSXIdentifier,
+  scope: Scope.Scope | null,
+): Scope.Variable | null {
+  return (
+    scope &&
+    (scope.variables.find(v => v.name === node.name) || findJSXVariableInScope(node, scope.upper))
+  );
+}
+
+function peek<T>(arr: Array<T>) {
+  return arr[arr.length - 1];
+}
@@ -23,7 +23,12 @@ import { Rule } from 'eslint';
 import * as estree from 'estree';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
 import * as ts from 'typescript';
-import { isRequiredParserServices, sortLike, RequiredParserServices } from '../utils';
+import {
+  getTypeFromTreeNode,
+  isRequiredParserServices,
+  sortLike,
+  RequiredParserServices,
+} from '../utils';
 
 export const rule: Rule.RuleModule = {
   create(context: Rule.RuleContext) {
@@ -54,9 +59,9 @@ export const rule: Rule.RuleModule = {
 };
 
 function arrayElementTypeOf(node: TSESTree.Node, services: RequiredParserServices) {
-  const { typeToTypeNode, getTypeAtLocation } = services.program.getTypeChecker();
+  const { typeToTypeNode } = services.program.getTypeChecker();
   const typeNode = typeToTypeNode(
-    getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node)),
+    getTypeFromTreeNode(node as estree.Node, services),
     undefined,
     undefined,
   );
@@ -27,6 +27,80 @@ import { buildParsingOptions } from '../parser';
 
 const EXCLUDED_STATEMENTS = ['BreakStatement', 'LabeledStatement', 'ContinueStatement'];
 
+/**
+ * Words which can be followed by an identifier on the same line, including contextual keywords and Flow ones
+ */
+const KEYWORDS = new Set([
+  'abstract',
+  'as',
+  'async',
+  'await',
+  'break',
+  'case',
+  'catch',
+  'class',
+  'const',
+  'continue',
+  'debugger',
+  'declare',
+  'default',
+  'delete',
+  'do',
+  'else',
+  'enum',
+  'export',
+  'extends',
+  'false',
+  'finally',
+  'for',
+  'from',
+  'function',
+  'get',
+  'if',
+  'implements',
+  'import',
+  'in',
+  'instanceof',
+  'interface',
+  'let',
+  'mixins',
+  'module',
+  'new',
+  'null',
+  'of',
+  'opaque',
+  'package',
+  'private',
+  'proto',
+  'protected',
+  'public',
+  'return',
+  'set',
+  'static',
+  'super',
+  'switch',
+  'this',
+  'throw',
+  'true',
+  'try',
+  'type',
+  'typeof',
+  'var',
+  'void',
+  'while',
+  'with',
+  'yield',
+]);
+
+/**
+ * Maximum number of comment texts for which the outcome of parsing is remembered
+ */
+const MAX_MEMOIZED_COMMENTS = 10000;
+
+const containsCodeMemo: Map<string, boolean> = new Map();
+
+let parsingOptions: any;
+
 interface GroupComment {
   value: string;
   nodes: TSESTree.Comment[];
@@ -121,12 +195,30 @@ function isExclusion(parsedBody: Array<estree.Node>, code: SourceCode) {
 }
 
 function containsCode(value: string) {
+  if (!couldBeCode(value)) {
+    return false;
+  }
+  let result = containsCodeMemo.get(value);
+  if (result === undefined) {
+    result = parseAndCheckCode(value);
+    if (containsCodeMemo.size >= MAX_MEMOIZED_COMMENTS) {
+      containsCodeMemo.clear();
+    }
+    containsCodeMemo.set(value, result);
+  }
+  return result;
+}
+
+function parseAndCheckCode(value: string) {
   try {
-    const options = buildParsingOptions(
-      { filePath: 'some/filePath', tsConfigs: [], fileContent: '' },
-      true,
-    );
-    const result = babel.parse(value, options);
+    if (!parsingOptions) {
+      // building options once allows Babel to reuse the presets it loaded
+      parsingOptions = buildParsingOptions(
+        { filePath: 'some/filePath', tsConfigs: [], fileContent: '' },
+        true,
+      );
+    }
+    const result = babel.parse(value, parsingOptions);
     const parseResult = new SourceCode(value, result);
     return parseResult.ast.body.length > 0 && !isExclusion(parseResult.ast.body, parseResult);
   } catch (exception) {
@@ -134,6 +226,92 @@ function containsCode(value: string) {
   }
 }
 
+/**
+ * Cheap check rejecting most of the prose before trying to parse it: two words which are not keywords
+ * can't follow each other on the same line in code. Returns 'true' when it can't decide, e.g. for JSX
+ * where text is made of words, or for template literals with substitutions.
+ *
+ * exported for testing
+ */
+export function couldBeCode(text: string) {
+  if (/<[\w>]/.test(text)) {
+    return true;
+  }
+  let previousWord: string | undefined;
+  // whether a '/' at the current position would start a regular expression rather than a division
+  let regexAllowed = true;
+  let index = 0;
+  while (index < text.length) {
+    const char = text[index];
+    if (char === '\n') {
+      previousWord = undefined;
+      regexAllowed = true;
+      index++;
+    } else if (char === ' ' || char === '\t' || char === '\r') {
+      index++;
+    } else if (isWordChar(char)) {
+      let end = index + 1;
+      while (end < text.length && isWordChar(text[end])) {
+        end++;
+      }
+      const word = text.substring(index, end);
+      if (previousWord !== undefined && !KEYWORDS.has(previousWord) && !KEYWORDS.has(word)) {
+        return false;
+      }
+      previousWord = word;
+      regexAllowed = KEYWORDS.has(word);
+      index = end;
+    } else {
+      const end = skipNonWord(text, index, regexAllowed);
+      if (end < 0) {
+        return true;
+      }
+      previousWord = undefined;
+      regexAllowed = !(char === ')' || char === ']' || char === '}' || end > index + 1);
+      index = end;
+    }
+  }
+  return true;
+}
+
+function isWordChar(char: string) {
+  return /[\w$]/.test(char) || char.charCodeAt(0) > 0x7f;
+}
+
+/**
+ * Returns the index after the punctuator, string, regular expression or comment starting at 'start',
+ * or -1 when it can't be determined
+ */
+function skipNonWord(text: string, start: number, regexAllowed: boolean) {
+  const char = text[start];
+  if (text.startsWith('//', start)) {
+    const end = text.indexOf('\n', start);
+    return end < 0 ? text.length : end;
+  } else if (text.startsWith('/*', start)) {
+    const end = text.indexOf('*/', start + 2);
+    return end < 0 ? text.length : end + 2;
+  } else if (char === '"' || char === "'" || char === '`' || (char === '/' && regexAllowed)) {
+    let inCharacterClass = false;
+    for (let index = start + 1; index < text.length; index++) {
+      const current = text[index];
+      if (current === '\\') {
+        index++;
+      } else if (char === '`' && text.startsWith('${', index)) {
+        return -1;
+      } else if (char !== '`' && current === '\n') {
+        // unterminated literal, the newline is handled by the caller
+        return index;
+      } else if (char === '/' && (current === '[' || current === ']')) {
+        inCharacterClass = current === '[';
+      } else if (current === char && !inCharacterClass) {
+        return index + 1;
+      }
+    }
+    return text.length;
+  }
+  return start + 1;
+}
+
 function injectMissingBraces(value: string) {
   const openCurlyBraceNum = (value.match(/{/g) || []).length;
   const closeCurlyBraceNum = (value.match(/}/g) || []).length;
@@ -22,50 +22,27 @@
 import { Rule, Scope } from 'eslint';
 import * as estree from 'estree';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
-import {
-  isLiteral,
-  isObjectExpression,
-  isIdentifier,
-  isAssignmentExpression,
-} from 'eslint-plugin-sonarjs/lib/utils/nodes';
-import { LiveVariables, lva, ReferenceLike } from './lva';
-import CodePath = Rule.CodePath;
+import { isLiteral, isObjectExpression, isIdentifier } from 'eslint-plugin-sonarjs/lib/utils/nodes';
+import { LiveVariables, ReferenceLike } from './lva';
 import Variable = Scope.Variable;
-import CodePathSegment = Rule.CodePathSegment;
 import { isUnaryExpression, isArrayExpression } from '../utils';
+import { getDataflow, resolveReference } from './dataflow';
 
 export const rule: Rule.RuleModule = {
   create(context: Rule.RuleContext) {
-    const codePathStack: CodePathContext[] = [];
-    const liveVariablesMap = new Map<string, LiveVariables>();
-    const readVariables = new Set<Variable>();
-    // map from Variable to CodePath ids where variable is used
-    const variableUsages = new Map<Variable, Set<string>>();
+    const dataflow = getDataflow(context);
+    const { readVariables, variableUsagesWithJSX: variableUsages } = dataflow;
     const referencesUsedInDestructuring = new Set<ReferenceLike>();
     const destructuringStack: DestructuringContext[] = [];
 
     return {
-      ':matches(AssignmentExpression, VariableDeclarator[init])': (node: estree.Node) => {
-        pushAssignmentContext(node as AssignmentLike);
-      },
-      ':matches(AssignmentExpression, VariableDeclarator[init]):exit': () => {
-        popAssignmentContext();
-      },
-      Identifier: (node: estree.Node) => {
-        if (isEnumConstant()) {
-          return;
-        }
-        checkIdentifierUsage(node as estree.Identifier);
-      },
-      JSXIdentifier: (node: unknown) => {
-        checkIdentifierUsage(node as TSESTree.JSXIdentifier);
-      },
+      ...dataflow.listeners(context),
       ObjectPattern: () => {
         destructuringStack.push(new DestructuringContext());
       },
       'ObjectPattern > Property > Identifier': (node: estree.Node) => {
         const destructuring = peek(destructuringStack)!;
-        const { ref } = resolveReference(node as estree.Identifier);
+        const { ref } = resolveReference(context, node as estree.Identifier);
         if (ref) {
           destructuring.references.push(ref);
         }
@@ -81,35 +58,14 @@ export const rule: Rule.RuleModule = {
       },
 
       'Program:exit': () => {
-        lva(liveVariablesMap);
-        liveVariablesMap.forEach(lva => {
+        dataflow.liveVariables().forEach(lva => {
           checkSegment(lva);
           reportNeverReadVariables(lva);
         });
-      },
-
-      // CodePath events
-      onCodePathSegmentStart: (segment: CodePathSegment) => {
-        liveVariablesMap.set(segment.id, new LiveVariables(segment));
-      },
-      onCodePathStart: codePath => {
-        pushContext(new CodePathContext(codePath));
-      },
-      onCodePathEnd: () => {
-        popContext();
+        dataflow.release();
       },
     };
 
-    function pushAssignmentContext(node: AssignmentLike) {
-      peek(codePathStack).assignmentStack.push(new AssignmentContext(node));
-    }
-
-    function popAssignmentContext() {
-      const assignment = peek(codePathStack).assignmentStack.pop()!;
-      assignment.rhs.forEach(r => processReference(r));
-      assignment.lhs.forEach(r => processReference(r));
-    }
-
     function checkSegment(liveVariables: LiveVariables) {
       const willBeRead = new Set<Variable>(liveVariables.out);
       const references = [...liveVariables.references].reverse();
@@ -160,10 +116,6 @@ export const rule: Rule.RuleModule = {
       );
     }
 
-    function isEnumConstant() {
-      return (context.getAncestors() as TSESTree.Node[]).some(n => n.type === 'TSEnumDeclaration');
-    }
-
     function isDefaultParameter(ref: ReferenceLike) {
       if (ref.identifier.type !== 'Identifier') {
         return false;
@@ -213,212 +165,14 @@ export const rule: Rule.RuleModule = {
         loc: ref.identifier.loc!,
       });
     }
-
-    function checkIdentifierUsage(node: estree.Identifier | TSESTree.JSXIdentifier) {
-      const { ref, variable } =
-        node.type === 'Identifier' ? resolveReference(node) : resolveJSXReference(node);
-      if (ref) {
-        processReference(ref);
-        if (variable) {
-          updateReadVariables(ref);
-        }
-      }
-      if (variable) {
-        updateVariableUsages(variable);
-      }
-    }
-
-    function resolveJSXReference(node: TSESTree.JSXIdentifier) {
-      if (isJSXAttributeName(node)) {
-        return {};
-      }
-      const jsxReference = new JSXReference(node, context.getScope());
-      return { ref: jsxReference, variable: jsxReference.resolved };
-    }
-
-    function isJSXAttributeName(node: TSESTree.JSXIdentifier) {
-      const parent = node.parent;
-      return parent && parent.type === 'JSXAttribute' && parent.name === node;
-    }
-
-    function processReference(ref: ReferenceLike) {
-      const assignmentStack = peek(codePathStack).assignmentStack;
-      if (assignmentStack.length > 0) {
-        const assignment = peek(assignmentStack);
-        assignment.add(ref);
-      } else {
-        peek(codePathStack).codePath.currentSegments.forEach(segment => {
-          lvaForSegment(segment).add(ref);
-        });
-      }
-    }
-
-    function lvaForSegment(segment: CodePathSegment) {
-      let lva;
-      if (liveVariablesMap.has(segment.id)) {
-        lva = liveVariablesMap.get(segment.id)!;
-      } else {
-        lva = new LiveVariables(segment);
-        liveVariablesMap.set(segment.id, lva);
-      }
-      return lva;
-    }
-
-    function updateReadVariables(reference: ReferenceLike) {
-      const variable = reference.resolved!;
-      if (reference.isRead()) {
-        readVariables.add(variable);
-      }
-    }
-
-    function updateVariableUsages(variable: Scope.Variable) {
-      const codePathId = peek(codePathStack).codePath.id;
-      if (variableUsages.has(variable)) {
-        variableUsages.get(variable)!.add(codePathId);
-      } else {
-        variableUsages.set(
-          variable,
-          new Set<string>([codePathId]),
-        );
-      }
-    }
-
-    function popContext() {
-      codePathStack.pop();
-    }
-
-    function pushContext(codePathContext: CodePathContext) {
-      codePathStack.push(codePathContext);
-    }
-
-    function resolveReference(node: estree.Identifier) {
-      return resolveReferenceRecursively(node, context.getScope());
-    }
-
-    function resolveReferenceRecursively(
-      node: estree.Identifier,
-      scope: Scope.Scope | null,
-    ): { ref: ReferenceLike | null; variable: Scope.Variable | null } {
-      if (scope === null) {
-        return { ref: null, variable: null };
-      }
-      const ref = scope.references.find(r => r.identifier === node);
-      if (ref) {
-        return { ref, variable: ref.resolved };
-      } else {
-        // if it's not a reference, it can be just declaration without initializer
-        const variable = scope.variables.find(v => v.defs.find(def => def.name === node));
-        if (variable) {
-          return { ref: null, variable };
-        }
-        // in theory we only need 1-level recursion, only for switch expression, which is likely a bug in eslint
-        // generic recursion is used for safety & readability
-        return resolveReferenceRecursively(node, scope.upper);
-      }
-    }
   },
 };
 
-class CodePathContext {
-  liveVariablesMap = new Map<string, LiveVariables>();
-  liveVariablesStack: LiveVariables[] = [];
-  codePath: CodePath;
-  segments = new Map<string, CodePathSegment>();
-  assignmentStack: AssignmentContext[] = [];
-
-  constructor(codePath: CodePath) {
-    this.codePath = codePath;
-  }
-}
-
 class DestructuringContext {
   hasRest = false;
   references: ReferenceLike[] = [];
 }
 
-type AssignmentLike = TSESTree.AssignmentExpression | TSESTree.VariableDeclarator;
-
-class AssignmentContext {
-  node: AssignmentLike;
-
-  constructor(node: AssignmentLike) {
-    this.node = node;
-  }
-
-  lhs = new Set<ReferenceLike>();
-  rhs = new Set<ReferenceLike>();
-
-  isRhs(node: TSESTree.Node) {
-    return isAssignmentExpression(this.node) ? this.node.right === node : this.node.init === node;
-  }
-
-  isLhs(node: TSESTree.Node) {
-    return isAssignmentExpression(this.node) ? this.node.left === node : this.node.id === node;
-  }
-
-  add(ref: ReferenceLike) {
-    let parent = ref.identifier as TSESTree.Node | undefined;
-    while (parent) {
-      if (this.isLhs(parent)) {
-        this.lhs.add(ref);
-        break;
-      }
-      if (this.isRhs(parent)) {
-        this.rhs.add(ref);
-        break;
-      }
-      parent = parent.parent;
-    }
-    if (parent === null) {
-      throw new Error('failed to find assignment lhs/rhs');
-    }
-  }
-}
-
-class JSXReference implements ReferenceLike {
-  from: Scope.Scope;
-  identifier: TSESTree.JSXIdentifier;
-  init = false;
-  resolved: Scope.Variable | null;
-  writeExpr: estree.Node | null = null;
-
-  constructor(node: TSESTree.JSXIdentifier, scope: Scope.Scope) {
-    this.from = scope;
-    this.identifier = node;
-    this.resolved = findJSXVariableInScope(node, scope);
-  }
-
-  isRead(): boolean {
-    return true;
-  }
-
-  isReadOnly(): boolean {
-    return true;
-  }
-
-  isReadWrite(): boolean {
-    return false;
-  }
-
-  isWrite(): boolean {
-    return false;
-  }
-
-  isWriteOnly(): boolean {
-    return false;
-  }
-}
-
-function findJSXVariableInScope(
-  node: TSESTree.JSXIdentifier,
-  scope: Scope.Scope | null,
-): Scope.Variable | null {
-  return (
-    scope &&
-    (scope.variables.find(v => v.name === node.name) || findJSXVariableInScope(node, scope.upper))
-  );
-}
-
 function peek<T>(arr: Array<T>) {
   return arr[arr.length - 1];
 }
@@ -22,23 +22,14 @@
 import { Rule } from 'eslint';
 import * as estree from 'estree';
 import builtins from 'builtin-modules';
-import * as path from 'path';
-import * as fs from 'fs';
 import * as ts from 'typescript';
-import { RequiredParserServices } from '../utils';
-
-const DefinitelyTyped = '@types/';
-
-/**
- * Cache for each dirname the dependencies of the nearest package.json.
- */
-const cache: Map<string, Set<string>> = new Map();
+import { getDependencies, getPathMappingPatterns, PathMappingPattern } from '../module-resolution';
 
 export const rule: Rule.RuleModule = {
   create(context: Rule.RuleContext) {
     const whitelist = context.options;
     const dependencies = getDependencies(context.getFilename());
-    const aliasedPathsMappingPatterns = extractPathMappingPatterns(context.parserServices);
+    const aliasedPathsMappingPatterns = getPathMappingPatterns(context.parserServices?.program);
     if (aliasedPathsMappingPatterns === 'matchAll') {
       // deactivates this rule altogether.
       return {};
@@ -127,108 +118,3 @@ function getPackageName(name: string) {
     return `${parts[0]}/${parts[1]}`;
   }
 }
-
-function getDependencies(fileName: string) {
-  const dirname = path.dirname(fileName);
-
-  const cached = cache.get(dirname);
-  if (cached) {
-    return cached;
-  }
-
-  const result = new Set<string>();
-  const packageJsonPath = findPackageJson(path.resolve(dirname));
-  if (packageJsonPath !== undefined) {
-    try {
-      // remove BOM from file content before parsing
-      const content = JSON.parse(fs.readFileSync(packageJsonPath, 'utf8').replace(/^\uFEFF/, ''));
-      if (content.dependencies !== undefined) {
-        addDependencies(result, content.dependencies);
-      }
-      if (content.devDependencies !== undefined) {
-        addDependencies(result, content.devDependencies);
-      }
-      if (content.peerDependencies !== undefined) {
-        addDependencies(result, content.peerDependencies);
-      }
-    } catch {}
-  }
-
-  cache.set(dirname, result);
-
-  return result;
-}
-
-function addDependencies(result: Set<string>, dependencies: any) {
-  Object.keys(dependencies).forEach(name =>
-    result.add(name.startsWith(DefinitelyTyped) ? name.substring(DefinitelyTyped.length) : name),
-  );
-}
-
-function findPackageJson(current: string): string | undefined {
-  const fileName = path.join(current, 'package.json');
-  if (fs.existsSync(fileName)) {
-    return fileName;
-  }
-
-  const prev: string = current;
-  current = path.dirname(current);
-
-  if (prev !== current) {
-    return findPackageJson(current);
-  }
-  return undefined;
-}
-
-/**
- * The matching pattern part of a path mapping specified
- * in `paths` in `tsconfig.json`.
- */
-interface PathMappingPattern {
-  isApplicableTo(name: string): boolean;
-}
-
-class PathMappingNoAsteriskPattern implements PathMappingPattern {
-  constructor(private readonly value: string) {}
-  isApplicableTo(name: string): boolean {
-    return name === this.value;
-  }
-}
-
-class PathMappingSingleAsteriskPattern implements PathMappingPattern {
-  constructor(private readonly prefix: string, private readonly suffix: string) {}
-  isApplicableTo(name: string): boolean {
-    return name.startsWith(this.prefix) && name.endsWith(this.suffix);
-  }
-}
-
-const PATH_MAPPING_ASTERISK_PATTERN = /^([^*]*)\*([^*]*)$/; // matches any string with single asterisk '*'
-const PATH_MAPPING_ASTERISK_PATTERN_PREFIX_IDX = 1;
-const PATH_MAPPING_ASTERISK_PATTERN_SUFFIX_IDX = 2;
-function extractPathMappingPatterns(
-  parserServices: RequiredParserServices,
-): PathMappingPattern[] | 'matchAll' {
-  const compilerOptions = parserServices.program && parserServices.program.getCompilerOptions();
-  const paths = (compilerOptions && compilerOptions.paths) || [];
-  const pathMappingPatterns: PathMappingPattern[] = [];
-  for (const p in paths) {
-    if (p === '*') {
-      return 'matchAll';
-    } else {
-      const m = p.match(PATH_MAPPING_ASTERISK_PATTERN);
-      if (m) {
-        pathMappingPatterns.push(
-          new PathMappingSingleAsteriskPattern(
-            m[PATH_MAPPING_ASTERISK_PATTERN_PREFIX_IDX],
-            m[PATH_MAPPING_ASTERISK_PATTERN_SUFFIX_IDX],
-          ),
-        );
-      } else if (!p.includes('*')) {
-        pathMappingPatterns.push(new PathMappingNoAsteriskPattern(p));
-      } else {
-        // This case should not occur: `tsc` emits error if there is more than one asterisk
-      }
-    }
-  }
-  return pathMappingPatterns;
-}
@@ -22,75 +22,32 @@
 import { Rule, Scope } from 'eslint';
 import * as estree from 'estree';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
-import { isAssignmentExpression } from 'eslint-plugin-sonarjs/lib/utils/nodes';
-import CodePath = Rule.CodePath;
 import Variable = Scope.Variable;
 import Reference = Scope.Reference;
-import CodePathSegment = Rule.CodePathSegment;
 import {
   getVariableFromIdentifier,
-  reachingDefinitions,
   ReachingDefinitions,
   resolveAssignedValues,
   Values,
 } from './reachingDefinitions';
+import { getDataflow } from './dataflow';
 
 const message = (name: string) =>
   `Review this redundant assignment: "${name}" already holds the assigned value along all execution paths.`;
 export const rule: Rule.RuleModule = {
   create(context: Rule.RuleContext) {
-    const codePathStack: CodePathContext[] = [];
-    const reachingDefsMap = new Map<string, ReachingDefinitions>();
-    // map from Variable to CodePath ids where variable is used
-    const variableUsages = new Map<Variable, Set<string>>();
+    const dataflow = getDataflow(context);
 
     return {
-      ':matches(AssignmentExpression, VariableDeclarator[init])': (node: estree.Node) => {
-        pushAssignmentContext(node as AssignmentLike);
-      },
-      ':matches(AssignmentExpression, VariableDeclarator[init]):exit': () => {
-        popAssignmentContext();
-      },
-      Identifier: (node: estree.Node) => {
-        if (isEnumConstant()) {
-          return;
-        }
-        checkIdentifierUsage(node as estree.Identifier);
-      },
+      ...dataflow.listeners(context),
       'Program:exit': () => {
-        reachingDefinitions(reachingDefsMap);
-        reachingDefsMap.forEach(defs => {
+        dataflow.reachingDefinitions().forEach(defs => {
           checkSegment(defs);
         });
-        reachingDefsMap.clear();
-        variableUsages.clear();
-        while (codePathStack.length > 0) {
-          codePathStack.pop();
-        }
-      },
-
-      // CodePath events
-      onCodePathSegmentStart: (segment: CodePathSegment) => {
-        reachingDefsMap.set(segment.id, new ReachingDefinitions(segment));
-      },
-      onCodePathStart: codePath => {
-        pushContext(new CodePathContext(codePath));
-      },
-      onCodePathEnd: () => {
-        popContext();
+        dataflow.release();
       },
     };
 
-    function popAssignmentContext() {
-      const assignment = peek(codePathStack).assignmentStack.pop()!;
-      assignment.rhs.forEach(r => processReference(r));
-      assignment.lhs.forEach(r => processReference(r));
-    }
-
-    function pushAssignmentContext(node: AssignmentLike) {
-      peek(codePathStack).assignmentStack.push(new AssignmentContext(node));
-    }
-
     function checkSegment(reachingDefs: ReachingDefinitions) {
       const assignedValuesMap = new Map<Variable, Values>(reachingDefs.in);
       reachingDefs.references.forEach(ref => {
@@ -158,151 +115,12 @@ export const rule: Rule.RuleModule = {
       );
     }
 
-    function isEnumConstant() {
-      return (context.getAncestors() as TSESTree.Node[]).some(n => n.type === 'TSEnumDeclaration');
-    }
-
     function variableUsedOutsideOfCodePath(variable: Scope.Variable) {
-      return variableUsages.get(variable)!.size > 1;
-    }
-
-    function checkIdentifierUsage(node: estree.Identifier) {
-      const { ref, variable } = resolveReference(node);
-      if (ref) {
-        processReference(ref);
-      }
-      if (variable) {
-        updateVariableUsages(variable);
-      }
-    }
-
-    function processReference(ref: Reference) {
-      const assignmentStack = peek(codePathStack).assignmentStack;
-      if (assignmentStack.length > 0) {
-        const assignment = peek(assignmentStack);
-        assignment.add(ref);
-      } else {
-        peek(codePathStack).codePath.currentSegments.forEach(segment => {
-          const reachingDefs = reachingDefsForSegment(segment);
-          reachingDefs.add(ref);
-        });
-      }
-    }
-
-    function reachingDefsForSegment(segment: CodePathSegment) {
-      let defs;
-      if (reachingDefsMap.has(segment.id)) {
-        defs = reachingDefsMap.get(segment.id)!;
-      } else {
-        defs = new ReachingDefinitions(segment);
-        reachingDefsMap.set(segment.id, defs);
-      }
-      return defs;
-    }
-
-    function updateVariableUsages(variable: Scope.Variable) {
-      const codePathId = peek(codePathStack).codePath.id;
-      if (variableUsages.has(variable)) {
-        variableUsages.get(variable)!.add(codePathId);
-      } else {
-        variableUsages.set(
-          variable,
-          new Set<string>([codePathId]),
-        );
-      }
-    }
-
-    function pushContext(codePathContext: CodePathContext) {
-      codePathStack.push(codePathContext);
-    }
-
-    function popContext() {
-      codePathStack.pop();
-    }
-
-    function resolveReferenceRecursively(
-      node: estree.Identifier,
-      scope: Scope.Scope | null,
-    ): { ref: Reference | null; variable: Scope.Variable | null } {
-      if (scope === null) {
-        return { ref: null, variable: null };
-      }
-      const ref = scope.references.find(r => r.identifier === node);
-      if (ref) {
-        return { ref, variable: ref.resolved };
-      } else {
-        // if it's not a reference, it can be just declaration without initializer
-        const variable = scope.variables.find(v => v.defs.find(def => def.name === node));
-        if (variable) {
-          return { ref: null, variable };
-        }
-        // in theory we only need 1-level recursion, only for switch expression, which is likely a bug in eslint
-        // generic recursion is used for safety & readability
-        return resolveReferenceRecursively(node, scope.upper);
-      }
-    }
-
-    function resolveReference(node: estree.Identifier) {
-      return resolveReferenceRecursively(node, context.getScope());
+      return dataflow.variableUsages.get(variable)!.size > 1;
     }
   },
 };
 
-class CodePathContext {
-  reachingDefinitionsMap = new Map<string, ReachingDefinitions>();
-  reachingDefinitionsStack: ReachingDefinitions[] = [];
-  codePath: CodePath;
-  segments = new Map<string, CodePathSegment>();
-  assignmentStack: AssignmentContext[] = [];
-
-  constructor(codePath: CodePath) {
-    this.codePath = codePath;
-  }
-}
-
-type AssignmentLike = TSESTree.AssignmentExpression | TSESTree.VariableDeclarator;
-
-class AssignmentContext {
-  node: AssignmentLike;
-
-  constructor(node: AssignmentLike) {
-    this.node = node;
-  }
-
-  lhs = new Set<Reference>();
-  rhs = new Set<Reference>();
-
-  isRhs(node: TSESTree.Node) {
-    return isAssignmentExpression(this.node) ? this.node.right === node : this.node.init === node;
-  }
-
-  isLhs(node: TSESTree.Node) {
-    return isAssignmentExpression(this.node) ? this.node.left === node : this.node.id === node;
-  }
-
-  add(ref: Reference) {
-    let parent = ref.identifier as TSESTree.Node | undefined;
-    while (parent) {
-      if (this.isLhs(parent)) {
-        this.lhs.add(ref);
-        break;
-      }
-      if (this.isRhs(parent)) {
-        this.rhs.add(ref);
-        break;
-      }
-      parent = parent.parent;
-    }
-    if (parent === null) {
-      throw new Error('failed to find assignment lhs/rhs');
-    }
-  }
-}
-
-function peek<T>(arr: Array<T>) {
-  return arr[arr.length - 1];
-}
-
 function isSelfAssignement(ref: Reference) {
   const lhs = ref.resolved;
   if (ref.writeExpr?.type === 'Identifier') {
@@ -21,7 +21,7 @@
 
 import { Rule } from 'eslint';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
-import { isRequiredParserServices, RequiredParserServices } from '../utils';
+import { getTypeFromTreeNode, isRequiredParserServices, RequiredParserServices } from '../utils';
 import * as estree from 'estree';
 import * as ts from 'typescript';
 
@@ -71,19 +71,18 @@ function allReturnTypesEqual(
   returns: ReturnedExpression[],
   services: RequiredParserServices,
 ): boolean {
-  const firstReturnType = getTypeFromTreeNode(returns.pop(), services);
+  const firstReturnType = getTypeOfReturned(returns.pop(), services);
   if (!!firstReturnType && !!isPrimitiveType(firstReturnType)) {
     return returns.every(nextReturn => {
-      const nextReturnType = getTypeFromTreeNode(nextReturn, services);
+      const nextReturnType = getTypeOfReturned(nextReturn, services);
       return !!nextReturnType && nextReturnType.flags === firstReturnType.flags;
     });
   }
   return false;
 }
 
-function getTypeFromTreeNode(node: ReturnedExpression, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  return checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+function getTypeOfReturned(node: ReturnedExpression, services: RequiredParserServices) {
+  return node ? getTypeFromTreeNode(node, services) : undefined;
 }
 
 function isPrimitiveType({ flags }: ts.Type) {
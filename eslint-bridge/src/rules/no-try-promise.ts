@@ -23,7 +23,12 @@ import { Rule, SourceCode } from 'eslint';
 import * as estree from 'estree';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
 import * as ts from 'typescript';
-import { isRequiredParserServices, RequiredParserServices, toEncodedMessage } from '../utils';
+import {
+  getTypeFromTreeNode,
+  isRequiredParserServices,
+  RequiredParserServices,
+  toEncodedMessage,
+} from '../utils';
 
 type CallLikeExpression =
   | TSESTree.CallExpression
@@ -153,8 +158,7 @@ function checkForUselessCatch(
 }
 
 function hasThenMethod(node: TSESTree.Node, services: RequiredParserServices) {
-  const mapped = services.esTreeNodeToTSNodeMap.get(node);
-  const tp = services.program.getTypeChecker().getTypeAtLocation(mapped);
+  const tp = getTypeFromTreeNode(node as estree.Node, services);
   const thenProperty = tp.getProperty('then');
   return Boolean(thenProperty && thenProperty.flags & ts.SymbolFlags.Method);
 }
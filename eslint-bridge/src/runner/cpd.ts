@@ -25,47 +25,56 @@ import { Location } from './location';
 
 export default function getCpdTokens(sourceCode: SourceCode): { cpdTokens: CpdToken[] } {
   const cpdTokens: CpdToken[] = [];
-  const tokens = sourceCode.ast.tokens;
-  const jsxTokens = extractJSXTokens(sourceCode);
-
-  tokens.forEach(token => {
-    let text = token.value;
-
-    if (text.trim().length === 0) {
-      // for EndOfFileToken and JsxText tokens containing only whitespaces
-      return;
+  const jsxTokens: Set<AST.Token> = new Set();
+  visit(sourceCode, node => collectJSXTokens(node, sourceCode, jsxTokens));
+  for (const token of sourceCode.ast.tokens) {
+    const cpdToken = toCpdToken(token, jsxTokens);
+    if (cpdToken) {
+      cpdTokens.push(cpdToken);
     }
+  }
+  return { cpdTokens };
+}
 
-    if (isStringLiteralToken(token) && !jsxTokens.includes(token)) {
-      text = 'LITERAL';
-    }
+/**
+ * Collects the tokens of string literals used as JSX attribute values, they are kept as is in CPD
+ * images
+ */
+export function collectJSXTokens(
+  node: estree.Node,
+  sourceCode: SourceCode,
+  tokens: Set<AST.Token>,
+) {
+  const tsNode = node as TSESTree.Node;
+  if (tsNode.type === 'JSXAttribute' && tsNode.value?.type === 'Literal') {
+    sourceCode.getTokens(tsNode.value as estree.Node).forEach(token => tokens.add(token));
+  }
+}
 
-    const startPosition = token.loc.start;
-    const endPosition = token.loc.end;
+export function toCpdToken(token: AST.Token, jsxTokens: Set<AST.Token>): CpdToken | undefined {
+  let text = token.value;
 
-    cpdTokens.push({
-      location: {
-        startLine: startPosition.line,
-        startCol: startPosition.column,
-        endLine: endPosition.line,
-        endCol: endPosition.column,
-      },
-      image: text,
-    });
-  });
+  if (text.trim().length === 0) {
+    // for EndOfFileToken and JsxText tokens containing only whitespaces
+    return undefined;
+  }
 
-  return { cpdTokens };
-}
+  if (isStringLiteralToken(token) && !jsxTokens.has(token)) {
+    text = 'LITERAL';
+  }
 
-function extractJSXTokens(sourceCode: SourceCode) {
-  const tokens: AST.Token[] = [];
-  visit(sourceCode, (node: estree.Node) => {
-    const tsNode = node as TSESTree.Node;
-    if (tsNode.type === 'JSXAttribute' && tsNode.value?.type === 'Literal') {
-      tokens.push(...sourceCode.getTokens(tsNode.value as estree.Node));
-    }
-  });
-  return tokens;
+  const startPosition = token.loc.start;
+  const endPosition = token.loc.end;
+
+  return {
+    location: {
+      startLine: startPosition.line,
+      startCol: startPosition.column,
+      endLine: endPosition.line,
+      endCol: endPosition.column,
+    },
+    image: text,
+  };
 }
 
 function isStringLiteralToken(token: AST.Token) {
@@ -76,3 +85,27 @@ export interface CpdToken {
   location: Location;
   image: string;
 }
+
+/**
+ * CPD tokens as sent to the plugin: the vocabulary of a file is small compared to its number of
+ * tokens, so each image is sent once in 'images' and tokens refer to it by index
+ */
+export interface EncodedCpdTokens {
+  images: string[];
+  tokens: { location: Location; image: number }[];
+}
+
+export function encodeCpdTokens(cpdTokens: CpdToken[]): EncodedCpdTokens {
+  const images: string[] = [];
+  const indexes: Map<string, number> = new Map();
+  const tokens = cpdTokens.map(({ location, image }) => {
+    let index = indexes.get(image);
+    if (index === undefined) {
+      index = images.length;
+      images.push(image);
+      indexes.set(image, index);
+    }
+    return { location, image: index };
+  });
+  return { images, tokens };
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { AST, SourceCode } from 'eslint';
+import { AST as VueAST } from 'vue-eslint-parser';
+import { visit } from '../utils';
+import { collectJSXTokens, CpdToken, toCpdToken } from './cpd';
+import { Highlight, highlightComment, highlightToken } from './highlighter';
+import {
+  addCommentLines,
+  addLines,
+  addSyntaxMetrics,
+  countHeaderComments,
+  Metrics,
+  newSyntaxMetrics,
+  toMetrics,
+  toSortedArray,
+} from './metrics';
+
+export interface FileData {
+  highlights: Highlight[];
+  metrics: Metrics;
+  cpdTokens: CpdToken[];
+}
+
+/**
+ * Computes the syntax highlighting, the metrics and the CPD tokens of a file, equivalent to
+ * 'getHighlighting', 'getMetrics' and 'getCpdTokens' but with a single visit of the AST followed
+ * by a single pass over the tokens and the comments. CPD tokens are empty when not 'withCpd'.
+ */
+export default function getFileData(
+  sourceCode: SourceCode,
+  ignoreHeaderComments: boolean,
+  cognitiveComplexity = 0,
+  withCpd = true,
+): FileData {
+  const syntaxMetrics = newSyntaxMetrics();
+  const jsxTokens: Set<AST.Token> = new Set();
+  visit(sourceCode, node => {
+    addSyntaxMetrics(node, syntaxMetrics);
+    if (withCpd) {
+      collectJSXTokens(node, sourceCode, jsxTokens);
+    }
+  });
+
+  const highlights: Highlight[] = [];
+  const cpdTokens: CpdToken[] = [];
+  const ncloc: Set<number> = new Set();
+  const ast = sourceCode.ast as VueAST.ESLintProgram;
+  for (const token of sourceCode.ast.tokens) {
+    addLines(token.loc.start.line, token.loc.end.line, ncloc);
+    highlightToken(token as VueAST.Token, highlights);
+    const cpdToken = withCpd && toCpdToken(token, jsxTokens);
+    if (cpdToken) {
+      cpdTokens.push(cpdToken);
+    }
+  }
+  ast.templateBody?.tokens.forEach(token => highlightToken(token, highlights));
+
+  const commentLines: Set<number> = new Set();
+  const nosonarLines: Set<number> = new Set();
+  const comments = sourceCode.ast.comments;
+  const headerComments = countHeaderComments(sourceCode, ignoreHeaderComments);
+  comments.forEach((comment, index) => {
+    highlightComment(comment, highlights);
+    if (index >= headerComments) {
+      addCommentLines(comment, commentLines, nosonarLines);
+    }
+  });
+  ast.templateBody?.comments.forEach(comment => highlightComment(comment, highlights));
+
+  return {
+    highlights,
+    metrics: {
+      ncloc: toSortedArray(ncloc),
+      commentLines: toSortedArray(commentLines),
+      nosonarLines: toSortedArray(nosonarLines),
+      ...toMetrics(syntaxMetrics),
+      cognitiveComplexity,
+    },
+    cpdTokens,
+  };
+}
@@ -27,38 +27,46 @@ export default function getHighlighting(sourceCode: SourceCode) {
   const { tokens, comments } = extractTokensAndComments(sourceCode);
   const highlights: Highlight[] = [];
   for (const token of tokens) {
-    switch (token.type as any) {
-      case 'HTMLTagOpen':
-      case 'HTMLTagClose':
-      case 'HTMLEndTagOpen':
-      case 'HTMLSelfClosingTagClose':
-      case 'Keyword':
-        highlight(token, 'KEYWORD', highlights);
-        break;
-      case 'HTMLLiteral':
-      case 'String':
-      case 'Template':
-      case 'RegularExpression':
-        highlight(token, 'STRING', highlights);
-        break;
-      case 'Numeric':
-        highlight(token, 'CONSTANT', highlights);
-        break;
-    }
+    highlightToken(token, highlights);
   }
   for (const comment of comments) {
-    if (
-      (comment.type === 'Block' && comment.value.startsWith('*')) ||
-      comment.type === 'HTMLBogusComment'
-    ) {
-      highlight(comment, 'STRUCTURED_COMMENT', highlights);
-    } else {
-      highlight(comment, 'COMMENT', highlights);
-    }
+    highlightComment(comment, highlights);
   }
   return { highlights };
 }
 
+export function highlightToken(token: AST.Token, highlights: Highlight[]) {
+  switch (token.type as any) {
+    case 'HTMLTagOpen':
+    case 'HTMLTagClose':
+    case 'HTMLEndTagOpen':
+    case 'HTMLSelfClosingTagClose':
+    case 'Keyword':
+      highlight(token, 'KEYWORD', highlights);
+      break;
+    case 'HTMLLiteral':
+    case 'String':
+    case 'Template':
+    case 'RegularExpression':
+      highlight(token, 'STRING', highlights);
+      break;
+    case 'Numeric':
+      highlight(token, 'CONSTANT', highlights);
+      break;
+  }
+}
+
+export function highlightComment(comment: AST.Token | ESTree.Comment, highlights: Highlight[]) {
+  if (
+    (comment.type === 'Block' && comment.value.startsWith('*')) ||
+    comment.type === 'HTMLBogusComment'
+  ) {
+    highlight(comment, 'STRUCTURED_COMMENT', highlights);
+  } else {
+    highlight(comment, 'COMMENT', highlights);
+  }
+}
+
 export type SonarTypeOfText = 'CONSTANT' | 'COMMENT' | 'STRUCTURED_COMMENT' | 'KEYWORD' | 'STRING';
 
 export interface Highlight {
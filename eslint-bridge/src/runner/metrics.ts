@@ -21,7 +21,7 @@ import { SourceCode } from 'eslint';
 import * as estree from 'estree';
 import { visit } from '../utils';
 
-const EXECUTABLE_NODES = [
+const EXECUTABLE_NODES = new Set([
   'ExpressionStatement',
   'IfStatement',
   'LabeledStatement',
@@ -39,9 +39,9 @@ const EXECUTABLE_NODES = [
   'DebuggerStatement',
   'VariableDeclaration',
   'ForOfStatement',
-];
+]);
 
-const STATEMENT_NODES = [
+const STATEMENT_NODES = new Set([
   'VariableDeclaration',
   'EmptyStatement',
   'ExpressionStatement',
@@ -59,46 +59,91 @@ const STATEMENT_NODES = [
   'ThrowStatement',
   'TryStatement',
   'DebuggerStatement',
-];
+]);
 
-const LOOP_NODES = [
+const LOOP_NODES = new Set([
   'ForStatement',
   'ForInStatement',
   'ForOfStatement',
   'WhileStatement',
   'DoWhileStatement',
-];
+]);
 
-const CONDITIONAL_NODES = ['IfStatement', 'ConditionalExpression', 'SwitchCase'];
+const CONDITIONAL_NODES = new Set(['IfStatement', 'ConditionalExpression', 'SwitchCase']);
 
-const FUNCTION_NODES = ['FunctionDeclaration', 'FunctionExpression', 'ArrowFunctionExpression'];
+const FUNCTION_NODES = new Set([
+  'FunctionDeclaration',
+  'FunctionExpression',
+  'ArrowFunctionExpression',
+]);
 
-const CLASS_NODES = ['ClassDeclaration', 'ClassExpression'];
+const CLASS_NODES = new Set(['ClassDeclaration', 'ClassExpression']);
 
-const COMPLEXITY_NODES = [
+const COMPLEXITY_NODES = new Set([
   ...CONDITIONAL_NODES,
   ...FUNCTION_NODES,
   ...LOOP_NODES,
   'LogicalExpression',
-];
+]);
 
 export default function getMetrics(
   sourceCode: SourceCode,
   ignoreHeaderComments: boolean,
   cognitiveComplexity = 0,
 ): Metrics {
+  const syntaxMetrics = newSyntaxMetrics();
+  visit(sourceCode, node => addSyntaxMetrics(node, syntaxMetrics));
   return {
     ncloc: findLinesOfCode(sourceCode),
     ...findCommentLines(sourceCode, ignoreHeaderComments),
-    executableLines: findExecutableLines(sourceCode),
-    functions: countFunctions(sourceCode),
-    statements: countStatements(sourceCode),
-    classes: countClasses(sourceCode),
-    complexity: getCyclomaticComplexity(sourceCode),
+    ...toMetrics(syntaxMetrics),
     cognitiveComplexity,
   };
 }
 
+/**
+ * Metrics computed from the nodes of the AST, accumulated while visiting it
+ */
+export interface SyntaxMetrics {
+  executableLines: Set<number>;
+  functions: number;
+  statements: number;
+  classes: number;
+  complexity: number;
+}
+
+export function newSyntaxMetrics(): SyntaxMetrics {
+  return { executableLines: new Set(), functions: 0, statements: 0, classes: 0, complexity: 0 };
+}
+
+export function addSyntaxMetrics(node: estree.Node, metrics: SyntaxMetrics) {
+  const type = node.type;
+  if (EXECUTABLE_NODES.has(type) && node.loc) {
+    metrics.executableLines.add(node.loc.start.line);
+  }
+  if (STATEMENT_NODES.has(type)) {
+    metrics.statements++;
+  }
+  if (FUNCTION_NODES.has(type)) {
+    metrics.functions++;
+  } else if (CLASS_NODES.has(type)) {
+    metrics.classes++;
+  }
+  if (COMPLEXITY_NODES.has(type)) {
+    metrics.complexity++;
+  }
+}
+
+export function toMetrics(metrics: SyntaxMetrics) {
+  return {
+    executableLines: toSortedArray(metrics.executableLines),
+    functions: metrics.functions,
+    statements: metrics.statements,
+    classes: metrics.classes,
+    complexity: metrics.complexity,
+  };
+}
+
 export function getMetricsForSonarLint(sourceCode: SourceCode) {
   return {
     nosonarLines: findCommentLines(sourceCode, false).nosonarLines,
@@ -135,7 +180,7 @@ export function findLinesOfCode(sourceCode: SourceCode): number[] {
   for (const token of tokens) {
     addLines(token.loc.start.line, token.loc.end.line, lines);
   }
-  return Array.from(lines).sort((a, b) => a - b);
+  return toSortedArray(lines);
 }
 
 export function findCommentLines(
@@ -145,66 +190,69 @@ export function findCommentLines(
   const commentLines: Set<number> = new Set();
   const nosonarLines: Set<number> = new Set();
 
-  let comments = sourceCode.ast.comments;
+  const comments = sourceCode.ast.comments;
+  for (let i = countHeaderComments(sourceCode, ignoreHeaderComments); i < comments.length; i++) {
+    addCommentLines(comments[i], commentLines, nosonarLines);
+  }
 
-  // ignore header comments -> comments before first token
+  return {
+    commentLines: toSortedArray(commentLines),
+    nosonarLines: toSortedArray(nosonarLines),
+  };
+}
+
+/**
+ * Returns the number of header comments, i.e. comments before first token, when they should be ignored
+ */
+export function countHeaderComments(sourceCode: SourceCode, ignoreHeaderComments: boolean) {
   const firstToken = sourceCode.getFirstToken(sourceCode.ast);
   if (firstToken && ignoreHeaderComments) {
-    const header = sourceCode.getCommentsBefore(firstToken);
-    comments = comments.slice(header.length);
+    return sourceCode.getCommentsBefore(firstToken).length;
   }
+  return 0;
+}
 
-  for (const comment of comments) {
-    if (comment.loc) {
-      const commentValue = comment.value.startsWith('*')
-        ? comment.value.substring(1).trim()
-        : comment.value.trim();
-      if (commentValue.toUpperCase().startsWith('NOSONAR')) {
-        addLines(comment.loc.start.line, comment.loc.end.line, nosonarLines);
-      } else if (commentValue.length > 0) {
-        addLines(comment.loc.start.line, comment.loc.end.line, commentLines);
-      }
+export function addCommentLines(
+  comment: estree.Comment,
+  commentLines: Set<number>,
+  nosonarLines: Set<number>,
+) {
+  if (comment.loc) {
+    const commentValue = comment.value.startsWith('*')
+      ? comment.value.substring(1).trim()
+      : comment.value.trim();
+    if (commentValue.toUpperCase().startsWith('NOSONAR')) {
+      addLines(comment.loc.start.line, comment.loc.end.line, nosonarLines);
+    } else if (commentValue.length > 0) {
+      addLines(comment.loc.start.line, comment.loc.end.line, commentLines);
     }
   }
-
-  return {
-    commentLines: Array.from(commentLines).sort((a, b) => a - b),
-    nosonarLines: Array.from(nosonarLines).sort((a, b) => a - b),
-  };
 }
 
 export function findExecutableLines(sourceCode: SourceCode): number[] {
   const lines: Set<number> = new Set();
   visit(sourceCode, node => {
-    if (EXECUTABLE_NODES.includes(node.type) && node.loc) {
+    if (EXECUTABLE_NODES.has(node.type) && node.loc) {
       lines.add(node.loc.start.line);
     }
   });
-  return Array.from(lines).sort((a, b) => a - b);
+  return toSortedArray(lines);
 }
 
 export function countFunctions(sourceCode: SourceCode): number {
-  return visitAndCountIf(sourceCode, node => FUNCTION_NODES.includes(node.type));
+  return visitAndCountIf(sourceCode, node => FUNCTION_NODES.has(node.type));
 }
 
 export function countStatements(sourceCode: SourceCode): number {
-  return visitAndCountIf(sourceCode, node => STATEMENT_NODES.includes(node.type));
+  return visitAndCountIf(sourceCode, node => STATEMENT_NODES.has(node.type));
 }
 
 export function countClasses(sourceCode: SourceCode): number {
-  return visitAndCountIf(sourceCode, node => CLASS_NODES.includes(node.type));
+  return visitAndCountIf(sourceCode, node => CLASS_NODES.has(node.type));
 }
 
 export function getCyclomaticComplexity(sourceCode: SourceCode): number {
-  let complexity = 0;
-
-  visit(sourceCode, node => {
-    if (COMPLEXITY_NODES.includes(node.type)) {
-      complexity++;
-    }
-  });
-
-  return complexity;
+  return visitAndCountIf(sourceCode, node => COMPLEXITY_NODES.has(node.type));
 }
 
 function visitAndCountIf(
@@ -220,8 +268,12 @@ function visitAndCountIf(
   return results;
 }
 
-function addLines(startLine: number, endLine: number, lines: Set<number>) {
+export function addLines(startLine: number, endLine: number, lines: Set<number>) {
   for (let line = startLine; line <= endLine; line++) {
     lines.add(line);
   }
 }
+
+export function toSortedArray(lines: Set<number>) {
+  return Array.from(lines).sort((a, b) => a - b);
+}
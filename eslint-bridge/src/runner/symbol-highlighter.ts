@@ -23,16 +23,16 @@ import { Location } from './location';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
 import { AST } from 'vue-eslint-parser';
 import { extractTokensAndComments } from './utils-token';
+import { isCollectingRuleResults, storeInternalResult } from '../rule-results';
 
 export const symbolHighlightingRuleId = 'internal-symbol-highlighting';
 
 /**
- * Using rule as we need to access declared variables which are available only with RuleContext
+ * Using rule as we need to access the scope manager which is available only with RuleContext.
+ * Variables are collected from the scopes once the whole file is visited, there is no listener on other nodes.
  */
 export const rule: Rule.RuleModule = {
   create(context: Rule.RuleContext) {
-    let variables: Set<Scope.Variable>;
-
     /*
        Remove TypeAnnotation part from location of identifier for purpose of symbol highlighting.
        This was motivated by following code
@@ -61,21 +61,15 @@ export const rule: Rule.RuleModule = {
     }
 
     return {
-      Program() {
-        // clear "variables" for each file
-        variables = new Set();
-      },
-      '*': (node: estree.Node) => {
-        context.getDeclaredVariables(node).forEach(v => variables.add(v));
-      },
       'Program:exit': (node: estree.Node) => {
         const result: HighlightedSymbol[] = [];
-        variables.forEach(v => {
+        declaredVariables(context.getSourceCode().scopeManager).forEach(v => {
           // if variable is initialized during declaration it is part of references as well
           // so we merge declarations and references to remove duplicates and take the earliest in the file as the declaration
-          const allRef = [
-            ...new Set([...v.defs.map(d => d.name), ...v.references.map(r => r.identifier)]),
-          ]
+          const identifiers: Set<estree.Identifier> = new Set();
+          v.defs.forEach(d => identifiers.add(d.name));
+          v.references.forEach(r => identifiers.add(r.identifier));
+          const allRef = Array.from(identifiers)
             .filter(i => !!i.loc)
             .sort((a, b) => a.loc!.start.line - b.loc!.start.line);
           if (allRef.length === 0) {
@@ -123,14 +117,56 @@ export const rule: Rule.RuleModule = {
           }
         });
 
-        // as issues are the only communication channel of a rule
-        // we pass data as serialized json as an issue message
-        context.report({ node, message: JSON.stringify(result) });
+        if (isCollectingRuleResults()) {
+          storeInternalResult(context.id, result);
+        } else {
+          // outside of the linter wrapper, issues are the only communication channel of a rule
+          // so we pass data as serialized json as an issue message
+          context.report({ node, message: JSON.stringify(result) });
+        }
       },
     };
   },
 };
 
+/**
+ * Returns the variables having a declaration, in the order in which 'context.getDeclaredVariables' would
+ * return them when called on each node of the AST: by the first node declaring them, i.e. the node of
+ * a definition or its parent, in traversal order.
+ */
+function declaredVariables(scopeManager: Scope.ScopeManager) {
+  const variables: { variable: Scope.Variable; declaringNode: estree.Node }[] = [];
+  for (const scope of scopeManager.scopes) {
+    for (const variable of scope.variables) {
+      let declaringNode: estree.Node | undefined;
+      for (const def of variable.defs) {
+        for (const defNode of [def.node, def.parent]) {
+          if (defNode?.range && (!declaringNode || isVisitedBefore(defNode, declaringNode))) {
+            declaringNode = defNode;
+          }
+        }
+      }
+      if (declaringNode) {
+        variables.push({ variable, declaringNode });
+      }
+    }
+  }
+  // sort is stable: variables declared by the same node remain in scope order
+  return variables
+    .sort((a, b) => compareTraversalOrder(a.declaringNode, b.declaringNode))
+    .map(({ variable }) => variable);
+}
+
+function isVisitedBefore(node: estree.Node, other: estree.Node) {
+  return compareTraversalOrder(node, other) < 0;
+}
+
+function compareTraversalOrder(node: estree.Node, other: estree.Node) {
+  const [start, end] = node.range!;
+  const [otherStart, otherEnd] = other.range!;
+  return start - otherStart || otherEnd - end;
+}
+
 export interface HighlightedSymbol {
   declaration: Location;
   references: Location[];
@@ -32,6 +32,27 @@ import {
 import { AddressInfo } from 'net';
 import { unloadTypeScriptEslint, ParseExceptionCode } from './parser';
 import { getFilesForTsConfig } from './tsconfig';
+import { installDocumentRegistry } from './document-registry';
+import { installModuleResolutionCache } from './module-resolution';
+import { uninstallHostHooks } from './compiler-hosts';
+import { saveParserHints } from './parser-hints';
+import { getContext } from './context';
+import {
+  getMemoryUsage,
+  installMemoryTelemetry,
+  isMemoryTelemetryInstalled,
+  uninstallMemoryTelemetry,
+} from './memory-telemetry';
+import { checkHeapUsage, profileFile, startProfilingRun, stopProfilingRun } from './node-profiler';
+import { collectRuleProfiles } from './rule-profile';
+import { encodeCpdTokens } from './runner/cpd';
+import {
+  installProgramTimings,
+  PhaseTimings,
+  startPhaseTimings,
+  stopPhaseTimings,
+} from './phase-timings';
+import { performance } from 'perf_hooks';
 
 const MAX_REQUEST_SIZE = '50mb';
 
@@ -40,7 +61,18 @@ export function start(
   host = '127.0.0.1',
   additionalRuleBundles: string[] = [],
 ): Promise<Server> {
-  return startServer(analyzeJavaScript, analyzeTypeScript, port, host, additionalRuleBundles);
+  installDocumentRegistry();
+  installModuleResolutionCache();
+  installMemoryTelemetry();
+  installProgramTimings();
+  startProfilingRun();
+  return startServer(analyzeJavaScript, analyzeTypeScript, port, host, additionalRuleBundles).then(
+    server =>
+      server.on('close', () => {
+        uninstallMemoryTelemetry();
+        uninstallHostHooks();
+      }),
+  );
 }
 
 type AnalysisFunction = (input: AnalysisInput) => AnalysisResponse;
@@ -80,6 +112,10 @@ export function startServer(
       response.send('OK!');
     });
 
+    app.post('/rule-profiles', (_request: express.Request, response: express.Response) => {
+      response.json(collectRuleProfiles());
+    });
+
     app.post('/tsconfig-files', (request: express.Request, response: express.Response) => {
       try {
         const tsconfig = request.body.tsconfig;
@@ -94,6 +130,8 @@ export function startServer(
 
     app.post('/close', (_req: express.Request, resp: express.Response) => {
       console.log('DEBUG eslint-bridge server will shutdown');
+      saveParserHints();
+      stopProfilingRun();
       resp.end(() => {
         server.close();
       });
@@ -113,9 +151,31 @@ function analyze(analysisFunction: AnalysisFunction): express.RequestHandler {
   return (request: express.Request, response: express.Response) => {
     try {
       const parsedRequest = request.body as AnalysisInput;
-      const analysisResponse = analysisFunction(parsedRequest);
-      response.json(analysisResponse);
+      const analyzeFile = () => {
+        const result = parsedRequest.cpuProfile
+          ? profileFile(parsedRequest.filePath, () => analysisFunction(parsedRequest))
+          : analysisFunction(parsedRequest);
+        checkHeapUsage();
+        return result;
+      };
+      // memory usage and phase timings are reported for each file, except in SonarLint
+      if (getContext()?.sonarlint) {
+        response.json(encodeResponse(analyzeFile()));
+        return;
+      }
+      startPhaseTimings();
+      const analysisResponse = analyzeFile();
+      const timings = stopPhaseTimings();
+      sendWithTimings(
+        response,
+        {
+          ...encodeResponse(analysisResponse),
+          ...(isMemoryTelemetryInstalled() && { memory: getMemoryUsage() }),
+        },
+        timings,
+      );
     } catch (e) {
+      stopPhaseTimings();
       console.error(e.stack);
       response.json({
         ...EMPTY_RESPONSE,
@@ -128,6 +188,34 @@ function analyze(analysisFunction: AnalysisFunction): express.RequestHandler {
   };
 }
 
+/**
+ * CPD tokens are sent with a table of their images, see 'encodeCpdTokens'
+ */
+function encodeResponse({ cpdTokens, ...analysisResponse }: AnalysisResponse) {
+  if (!cpdTokens) {
+    return analysisResponse;
+  }
+  return { ...analysisResponse, cpdTokens: encodeCpdTokens(cpdTokens) };
+}
+
+/**
+ * Timings are serialized last, so that their 'serialize' phase covers the rest of the response
+ */
+function sendWithTimings(
+  response: express.Response,
+  analysisResponse: object,
+  timings: PhaseTimings | undefined,
+) {
+  const start = performance.now();
+  const json = JSON.stringify({
+    ...analysisResponse,
+    ...(timings && {
+      timings: { toJSON: () => ({ ...timings, serialize: performance.now() - start }) },
+    }),
+  });
+  response.type('json').send(json);
+}
+
 function loadAdditionalRuleBundles(additionalRuleBundles: string[]) {
   for (const bundle of additionalRuleBundles) {
     const ruleIds = loadCustomRuleBundle(bundle);
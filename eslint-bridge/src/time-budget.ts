@@ -0,0 +1,125 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { Rule } from 'eslint';
+import { performance } from 'perf_hooks';
+
+/**
+ * Time budgets for the rules verifying a file, in milliseconds, 0 meaning unlimited
+ */
+export interface TimeBudget {
+  /**
+   * Time after which no rule is executed anymore on the file
+   */
+  file: number;
+  /**
+   * Time after which a rule is not executed anymore on the file
+   */
+  rule: number;
+}
+
+interface BudgetTracker {
+  budget: TimeBudget;
+  start: number;
+  ruleTimes: Map<string, number>;
+  skippedRules: Set<string>;
+}
+
+let current: BudgetTracker | undefined;
+
+/**
+ * Starts tracking the time spent by rules decorated with 'withTimeBudget' on the file about to be verified
+ */
+export function startTimeBudget(budget: TimeBudget) {
+  current = { budget, start: performance.now(), ruleTimes: new Map(), skippedRules: new Set() };
+}
+
+/**
+ * Returns the time in milliseconds spent by each rule on the file being verified, until tracking is stopped
+ */
+export function getRuleTimes(): Map<string, number> {
+  return current ? current.ruleTimes : new Map();
+}
+
+/**
+ * Stops tracking time and returns the keys of the rules which exceeded the budget on the file
+ */
+export function stopTimeBudget() {
+  const skippedRules = current ? [...current.skippedRules] : [];
+  current = undefined;
+  return skippedRules;
+}
+
+/**
+ * Decorates the rule so that its listeners are not executed anymore once it exceeded its own budget,
+ * or once the file exceeded its budget. The time spent by the rule is measured in any case, but it
+ * is skipped only when 'skippable'.
+ *
+ * A listener which is already running can't be interrupted, the budget is checked between calls: a
+ * single call running longer than the request timeout of the plugin still fails the analysis.
+ */
+export function withTimeBudget(
+  ruleId: string,
+  rule: Rule.RuleModule,
+  skippable = true,
+): Rule.RuleModule {
+  return {
+    // meta should be defined only when it's defined on original rule, otherwise RuleTester will fail
+    ...(!!rule.meta && { meta: rule.meta }),
+    create(context: Rule.RuleContext) {
+      const listeners = measure(ruleId, skippable, () => rule.create(context)) || {};
+      if (!current) {
+        return listeners;
+      }
+      const measuredListeners: Rule.RuleListener = {};
+      Object.entries(listeners).forEach(([selector, listener]) => {
+        const callback = listener as (...args: unknown[]) => void;
+        measuredListeners[selector] = (...args: unknown[]) => {
+          measure(ruleId, skippable, () => callback(...args));
+        };
+      });
+      return measuredListeners;
+    },
+  };
+}
+
+function measure<T>(ruleId: string, skippable: boolean, fn: () => T): T | undefined {
+  const tracker = current;
+  if (!tracker) {
+    return fn();
+  }
+  const { budget, ruleTimes, skippedRules } = tracker;
+  if (skippedRules.has(ruleId)) {
+    return undefined;
+  }
+  const start = performance.now();
+  if (skippable && budget.file > 0 && start - tracker.start > budget.file) {
+    skippedRules.add(ruleId);
+    return undefined;
+  }
+  try {
+    return fn();
+  } finally {
+    const time = (ruleTimes.get(ruleId) || 0) + performance.now() - start;
+    ruleTimes.set(ruleId, time);
+    if (skippable && budget.rule > 0 && time > budget.rule) {
+      skippedRules.add(ruleId);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import * as estree from 'estree';
 import { AST } from 'eslint';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
 import { EncodedMessage, IssueLocation } from 'eslint-plugin-sonarjs/lib/utils/locations';
+import { storeEncodedMessage } from '../rule-results';
 
 export type LocationHolder = AST.Token | TSESTree.Node | estree.Node | { loc: AST.SourceLocation };
 
@@ -40,7 +41,7 @@ export function toEncodedMessage(
       ),
     ),
   };
-  return JSON.stringify(encodedMessage);
+  return storeEncodedMessage(encodedMessage) ?? JSON.stringify(encodedMessage);
 }
 
 function toSecondaryLocation(locationHolder: LocationHolder, message?: string): IssueLocation {
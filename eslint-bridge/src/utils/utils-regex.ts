@@ -39,20 +39,46 @@ import { last } from './utils-collection';
  */
 export type Alternation = Pattern | CapturingGroup | Group | LookaroundAssertion;
 
+/**
+ * Maximum number of regular expressions kept in the cache of parsed regular expressions
+ */
+const MAX_CACHED_REGEXES = 10000;
+
+/**
+ * Parsed regular expressions by flags and pattern, shared by all regex rules and across files. Regular expressions
+ * are immutable once parsed, and the same pattern is usually checked by several rules or found in several files.
+ * 'null' is cached for invalid regular expressions.
+ */
+const parsedRegexCache: Map<string, regexpp.AST.RegExpLiteral | null> = new Map();
+
 export function getParsedRegex(
   node: estree.Node,
   context: Rule.RuleContext,
 ): regexpp.AST.RegExpLiteral | null {
   const patternAndFlags = getPatternFromNode(node, context);
   if (patternAndFlags) {
+    return parseRegex(patternAndFlags.pattern, patternAndFlags.flags);
+  }
+
+  return null;
+}
+
+function parseRegex(pattern: string, flags: string) {
+  const key = `${flags}/${pattern}`;
+  let parsed = parsedRegexCache.get(key);
+  if (parsed === undefined) {
     try {
-      return regexpp.parseRegExpLiteral(new RegExp(patternAndFlags.pattern, patternAndFlags.flags));
+      parsed = regexpp.parseRegExpLiteral(new RegExp(pattern, flags));
     } catch {
       // do nothing for invalid regex
+      parsed = null;
     }
+    if (parsedRegexCache.size >= MAX_CACHED_REGEXES) {
+      parsedRegexCache.clear();
+    }
+    parsedRegexCache.set(key, parsed);
   }
-
-  return null;
+  return parsed;
 }
 
 function getPatternFromNode(
@@ -22,20 +22,27 @@ import ts from 'typescript';
 import { TSESTree } from '@typescript-eslint/experimental-utils';
 import { RequiredParserServices } from 'eslint-plugin-sonarjs/lib/utils/parser-services';
 
+/**
+ * Results of type checker queries by ESTree node, shared by all the rules. An ESTree node belongs to the AST
+ * of a single file, built together with the program the type checker comes from, so results are computed
+ * once per node per file and released with the AST.
+ */
+const typeCache: WeakMap<estree.Node, ts.Type> = new WeakMap();
+const typeStringCache: WeakMap<estree.Node, string> = new WeakMap();
+const symbolCache: WeakMap<estree.Node, ts.Symbol | undefined> = new WeakMap();
+
 export function isArray(node: estree.Node, services: RequiredParserServices) {
   const type = getTypeFromTreeNode(node, services);
   return type.symbol && type.symbol.name === 'Array';
 }
 
 export function isString(node: estree.Node, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  const typ = checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  const typ = getTypeFromTreeNode(node, services);
   return (typ.getFlags() & ts.TypeFlags.StringLike) !== 0;
 }
 
 export function isNumber(node: estree.Node, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  const typ = checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  const typ = getTypeFromTreeNode(node, services);
   return (typ.getFlags() & ts.TypeFlags.NumberLike) !== 0;
 }
 
@@ -44,14 +51,12 @@ export function isStringType(type: ts.Type) {
 }
 
 export function isFunction(node: estree.Node, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  const type = checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  const type = getTypeFromTreeNode(node, services);
   return type.symbol && (type.symbol.flags & ts.SymbolFlags.Function) !== 0;
 }
 
 export function isUndefinedOrNull(node: estree.Node, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  const typ = checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  const typ = getTypeFromTreeNode(node, services);
   return (
     (typ.getFlags() & ts.TypeFlags.Undefined) !== 0 || (typ.getFlags() & ts.TypeFlags.Null) !== 0
   );
@@ -62,18 +67,42 @@ export function isAny(type: ts.Type) {
 }
 
 export function getTypeFromTreeNode(node: estree.Node, services: RequiredParserServices) {
-  const checker = services.program.getTypeChecker();
-  return checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  let type = typeCache.get(node);
+  if (!type) {
+    const checker = services.program.getTypeChecker();
+    type = checker.getTypeAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+    cache(typeCache, node, type);
+  }
+  return type;
 }
 
 export function getTypeAsString(node: estree.Node, services: RequiredParserServices) {
-  const { typeToString, getBaseTypeOfLiteralType } = services.program.getTypeChecker();
-  return typeToString(getBaseTypeOfLiteralType(getTypeFromTreeNode(node, services)));
+  let typeString = typeStringCache.get(node);
+  if (typeString === undefined) {
+    const { typeToString, getBaseTypeOfLiteralType } = services.program.getTypeChecker();
+    typeString = typeToString(getBaseTypeOfLiteralType(getTypeFromTreeNode(node, services)));
+    cache(typeStringCache, node, typeString);
+  }
+  return typeString;
 }
 
 export function getSymbolAtLocation(node: estree.Node, services: RequiredParserServices) {
+  if (node && symbolCache.has(node)) {
+    return symbolCache.get(node);
+  }
   const checker = services.program.getTypeChecker();
-  return checker.getSymbolAtLocation(services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node));
+  const symbol = checker.getSymbolAtLocation(
+    services.esTreeNodeToTSNodeMap.get(node as TSESTree.Node),
+  );
+  cache(symbolCache, node, symbol);
+  return symbol;
+}
+
+function cache<T>(results: WeakMap<estree.Node, T>, node: estree.Node | undefined, result: T) {
+  // some rules query the type of missing nodes, which can't be WeakMap keys
+  if (node) {
+    results.set(node, result);
+  }
 }
 
 export function getSignatureFromCallee(node: estree.Node, services: RequiredParserServices) {
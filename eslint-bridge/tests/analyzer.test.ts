@@ -107,6 +107,50 @@ describe('#analyzeJavaScript', () => {
     expect(cpdTokens).toHaveLength(42);
   });
 
+  it('should only compute metrics and cpd tokens of metrics-only file', () => {
+    initLinter([{ key: 'no-one-iteration-loop', configurations: [] }]);
+    const response = analyzeJavaScript({ filePath, fileContent: codeToTest, metricsOnly: true });
+    expect(response.metricsOnly).toBe(true);
+    expect(response.issues).toHaveLength(0);
+    expect(response.highlights).toBeUndefined();
+    expect(response.highlightedSymbols).toBeUndefined();
+    expect(response.cpdTokens).toHaveLength(42);
+    expect(response.metrics.ncloc).not.toHaveLength(0);
+  });
+
+  it('should not compute cpd tokens of metrics-only file when not requested', () => {
+    initLinter([{ key: 'no-one-iteration-loop', configurations: [] }]);
+    const response = analyzeJavaScript({
+      filePath,
+      fileContent: codeToTest,
+      metricsOnly: true,
+      metricsOnlyCpd: false,
+    });
+    expect(response.metricsOnly).toBe(true);
+    expect(response).not.toHaveProperty('cpdTokens');
+    expect(response.metrics.ncloc).not.toHaveLength(0);
+  });
+
+  it('should only compute metrics of file with too many tokens', () => {
+    initLinter([{ key: 'no-one-iteration-loop', configurations: [] }]);
+    const fullAnalysis = analyzeJavaScript({
+      filePath,
+      fileContent: codeToTest,
+      metricsOnlyTokens: 1000,
+    });
+    expect(fullAnalysis.metricsOnly).toBeUndefined();
+    expect(fullAnalysis.issues).toHaveLength(1);
+
+    const metricsOnly = analyzeJavaScript({
+      filePath,
+      fileContent: codeToTest,
+      metricsOnlyTokens: 10,
+    });
+    expect(metricsOnly.metricsOnly).toBe(true);
+    expect(metricsOnly.issues).toHaveLength(0);
+    expect(metricsOnly.metrics).toEqual(fullAnalysis.metrics);
+  });
+
   it('should return empty list when parse error', () => {
     initLinter([{ key: 'no-all-duplicated-branches', configurations: [] }]);
     const { issues } = analyzeJavaScript({
@@ -307,7 +351,7 @@ describe('#analyzeTypeScript', () => {
 
   it('should return empty list with highlighted symbols when issue is not found', () => {
     console.log = jest.fn();
-    expect(getHighlightedSymbols([])).toHaveLength(0);
+    expect(getHighlightedSymbols(new Map())).toHaveLength(0);
     expect(console.log).toHaveBeenCalledWith(
       'DEBUG Failed to retrieve symbol highlighting from analysis results',
     );
@@ -316,26 +360,16 @@ describe('#analyzeTypeScript', () => {
 
   it('should return 0 for cognitive complexity when issue is not found', () => {
     console.log = jest.fn();
-    expect(getCognitiveComplexity([])).toEqual(0);
+    expect(getCognitiveComplexity(new Map())).toEqual(0);
     expect(console.log).toHaveBeenCalledWith(
       'DEBUG Failed to retrieve cognitive complexity metric from analysis results',
     );
     jest.resetAllMocks();
   });
 
-  it('should return 0 for cognitive complexity when message is not numeric', () => {
+  it('should return 0 for cognitive complexity when result is not numeric', () => {
     console.log = jest.fn();
-    expect(
-      getCognitiveComplexity([
-        {
-          ruleId: 'internal-cognitive-complexity',
-          message: 'nan',
-          column: 0,
-          line: 0,
-          secondaryLocations: [],
-        },
-      ]),
-    ).toEqual(0);
+    expect(getCognitiveComplexity(new Map([['internal-cognitive-complexity', NaN]]))).toEqual(0);
     expect(console.log).toHaveBeenCalledWith(
       'DEBUG Failed to retrieve cognitive complexity metric from analysis results',
     );
@@ -0,0 +1,84 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as path from 'path';
+import * as ts from 'typescript';
+import {
+  registerCompilerHostHook,
+  registerWatchCompilerHostHook,
+  uninstallHostHooks,
+  unregisterHostHooks,
+} from 'compiler-hosts';
+
+const tsconfig = path.join(__dirname, 'fixtures', 'ts-project', 'tsconfig.json');
+
+describe('compiler hosts', () => {
+  afterEach(() => {
+    uninstallHostHooks();
+  });
+
+  it('should apply hooks in registration order', () => {
+    const calls: string[] = [];
+    registerWatchCompilerHostHook('first', () => calls.push('first'));
+    registerWatchCompilerHostHook('second', () => calls.push('second'));
+    expect(registerCompilerHostHook('compiler', () => calls.push('compiler'))).toBe(true);
+    ts.createWatchProgram(createWatchCompilerHost()).close();
+    expect(calls).toEqual(['first', 'second', 'compiler']);
+  });
+
+  it('should replace hook registered with the same name', () => {
+    const calls: string[] = [];
+    registerWatchCompilerHostHook('hook', () => calls.push('old'));
+    registerWatchCompilerHostHook('hook', () => calls.push('new'));
+    createWatchCompilerHost();
+    expect(calls).toEqual(['new']);
+  });
+
+  it('should restore typescript once no hook is left', () => {
+    const typescript = ts as any;
+    const createWatchCompilerHost = ts.createWatchCompilerHost;
+    const createCompilerHost = typescript.createCompilerHostFromProgramHost;
+    registerWatchCompilerHostHook('watch', () => {});
+    registerCompilerHostHook('compiler', () => {});
+    unregisterHostHooks('watch');
+    expect(ts.createWatchCompilerHost).not.toBe(createWatchCompilerHost);
+    unregisterHostHooks('compiler');
+    expect(ts.createWatchCompilerHost).toBe(createWatchCompilerHost);
+    expect(typescript.createCompilerHostFromProgramHost).toBe(createCompilerHost);
+  });
+
+  it('should uninstall all hooks', () => {
+    const createWatchCompilerHost = ts.createWatchCompilerHost;
+    registerWatchCompilerHostHook('first', () => {});
+    registerWatchCompilerHostHook('second', () => {});
+    uninstallHostHooks();
+    expect(ts.createWatchCompilerHost).toBe(createWatchCompilerHost);
+  });
+});
+
+function createWatchCompilerHost() {
+  return ts.createWatchCompilerHost(
+    tsconfig,
+    { noEmit: true },
+    ts.sys,
+    ts.createAbstractBuilder,
+    () => {},
+    () => {},
+  );
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as ts from 'typescript';
+import * as path from 'path';
+import {
+  DocumentRegistry,
+  getKeyForCompilationSettings,
+  installDocumentRegistry,
+  uninstallDocumentRegistry,
+} from 'document-registry';
+
+const tsconfig = path.join(__dirname, 'fixtures', 'ts-project', 'tsconfig.json');
+const sample = path.join(__dirname, 'fixtures', 'ts-project', 'sample.lint.ts');
+
+describe('document registry', () => {
+  afterEach(() => {
+    uninstallDocumentRegistry();
+  });
+
+  it('should reuse source files with identical content', () => {
+    const registry = new DocumentRegistry();
+    const code = 'declare const x: number;';
+    const first = acquire(registry, '/foo.d.ts', code);
+    const second = acquire(registry, '/foo.d.ts', code);
+    expect(second).toBe(first);
+    expect(registry.size()).toEqual(1);
+  });
+
+  it('should not reuse source files with different content or settings', () => {
+    const registry = new DocumentRegistry();
+    const first = acquire(registry, '/foo.ts', 'let x = 1;');
+    const changed = acquire(registry, '/foo.ts', 'let x = 2;');
+    expect(changed).not.toBe(first);
+    expect(changed.text).toEqual('let x = 2;');
+    const otherSettings = acquire(registry, '/foo.ts', 'let x = 2;', 'other');
+    expect(otherSettings).not.toBe(changed);
+    const otherFile = acquire(registry, '/bar.ts', 'let x = 2;');
+    expect(otherFile).not.toBe(changed);
+    expect(registry.size()).toEqual(3);
+  });
+
+  it('should evict least recently used source files beyond max size', () => {
+    const registry = new DocumentRegistry(20, () => false);
+    const foo = acquire(registry, '/foo.ts', 'let foo = 1;');
+    acquire(registry, '/bar.ts', 'let bar = 1;');
+    expect(registry.size()).toEqual(1);
+    expect(acquire(registry, '/foo.ts', 'let foo = 1;')).not.toBe(foo);
+  });
+
+  it('should evict source files under memory pressure', () => {
+    let underMemoryPressure = false;
+    const registry = new DocumentRegistry(undefined, () => underMemoryPressure);
+    console.log = jest.fn();
+    acquire(registry, '/foo.ts', 'let foo = 1;');
+    acquire(registry, '/bar.ts', 'let bar = 1;');
+    expect(registry.size()).toEqual(2);
+    underMemoryPressure = true;
+    acquire(registry, '/baz.ts', 'let baz = 1;');
+    expect(registry.size()).toEqual(1);
+    expect(console.log).toHaveBeenCalledWith(
+      'DEBUG Evicted source files from document registry due to memory pressure',
+    );
+  });
+
+  it('should key compilation settings by options affecting source files', () => {
+    const target = ts.ScriptTarget.ES2018;
+    const key = getKeyForCompilationSettings({ target, noEmit: true });
+    expect(getKeyForCompilationSettings({ target, noEmit: false })).toEqual(key);
+    expect(getKeyForCompilationSettings({ target: ts.ScriptTarget.ES5 })).not.toEqual(key);
+    expect(getKeyForCompilationSettings({ target, baseUrl: '/' })).not.toEqual(key);
+  });
+
+  it('should share source files between programs with the same compilation settings', () => {
+    const registry = new DocumentRegistry();
+    installDocumentRegistry(registry);
+    const first = getSourceFile({ noEmit: true });
+    const second = getSourceFile({ noEmit: true });
+    expect(first).toBeDefined();
+    expect(second).toBe(first);
+    const otherSettings = getSourceFile({ noEmit: true, baseUrl: __dirname });
+    expect(otherSettings).not.toBe(first);
+  });
+
+  it('should restore original implementation', () => {
+    const typescript = ts as any;
+    const original = typescript.createCompilerHostFromProgramHost;
+    installDocumentRegistry();
+    expect(typescript.createCompilerHostFromProgramHost).not.toBe(original);
+    uninstallDocumentRegistry();
+    expect(typescript.createCompilerHostFromProgramHost).toBe(original);
+  });
+});
+
+function acquire(registry: DocumentRegistry, fileName: string, text: string, settingsKey = '') {
+  return registry.acquire(fileName, text, settingsKey, () =>
+    ts.createSourceFile(fileName, text, ts.ScriptTarget.ES2018),
+  )!;
+}
+
+function getSourceFile(options: ts.CompilerOptions) {
+  const host = ts.createWatchCompilerHost(
+    tsconfig,
+    options,
+    ts.sys,
+    ts.createAbstractBuilder,
+    () => {},
+    () => {},
+  );
+  const watch = ts.createWatchProgram(host);
+  const sourceFile = watch.getProgram().getProgram().getSourceFile(sample);
+  watch.close();
+  return sourceFile;
+}
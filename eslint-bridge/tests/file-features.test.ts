@@ -0,0 +1,82 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { SourceCode } from 'eslint';
+import { getFileFeatures } from 'file-features';
+import { RULE_PREREQUISITES } from 'rule-prerequisites';
+import { parseJavaScriptSourceFile } from './utils/parser-utils';
+
+describe('file features', () => {
+  it('should index identifiers, imported modules and regex literals', () => {
+    const fileFeatures = features(
+      `import express from 'express';
+      import 'side-effect';
+      const multer = require("multer");
+      const lazy = import('lazy');
+      const s = 'not a module';
+      const r = /regex/;`,
+    );
+    expect(fileFeatures.modules).toEqual(new Set(['express', 'side-effect', 'multer', 'lazy']));
+    expect(Array.from(fileFeatures.identifiers)).toEqual(
+      expect.arrayContaining(['express', 'multer', 'require', 'lazy', 's', 'r']),
+    );
+    expect(fileFeatures.hasRegexLiteral).toBe(true);
+    expect(fileFeatures.hasTemplate).toBe(false);
+  });
+
+  it('should cache features by AST', () => {
+    const sourceCode = parseJavaScriptSourceFile('foo();', 'file.js') as SourceCode;
+    expect(getFileFeatures(sourceCode)).toBe(getFileFeatures(sourceCode));
+  });
+
+  it('should detect Vue templates', () => {
+    const sourceCode = parseJavaScriptSourceFile(
+      '<template><p v-html="foo"></p></template>',
+      '/some/path/file.vue',
+    ) as SourceCode;
+    expect(getFileFeatures(sourceCode).hasTemplate).toBe(true);
+  });
+});
+
+describe('rule prerequisites', () => {
+  it('should require regular expressions for regex rules', () => {
+    const regexRule = RULE_PREREQUISITES.get('slow-regex')!;
+    expect(regexRule(features('const r = /(a+)+/;'))).toBe(true);
+    expect(regexRule(features('new RegExp(pattern);'))).toBe(true);
+    expect(regexRule(features('str.match("(a+)+");'))).toBe(true);
+    expect(regexRule(features('foo("(a+)+");'))).toBe(false);
+  });
+
+  it('should require Express for Express rules', () => {
+    const expressRule = RULE_PREREQUISITES.get('no-mime-sniff')!;
+    expect(expressRule(features('const express = require("express");'))).toBe(true);
+    expect(expressRule(features('module.exports = function (app) {};'))).toBe(true);
+    expect(expressRule(features('const helmet = require("helmet");'))).toBe(false);
+  });
+
+  it('should require modules', () => {
+    const uploadRule = RULE_PREREQUISITES.get('file-uploads')!;
+    expect(uploadRule(features('import * as formidable from "formidable";'))).toBe(true);
+    expect(uploadRule(features('formidable();'))).toBe(false);
+  });
+});
+
+function features(code: string) {
+  return getFileFeatures(parseJavaScriptSourceFile(code, 'file.js') as SourceCode);
+}
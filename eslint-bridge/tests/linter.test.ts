@@ -18,6 +18,11 @@
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
 import { getRuleConfig, decodeSonarRuntimeIssue, LinterWrapper } from 'linter';
+import {
+  startCollectingRuleResults,
+  stopCollectingRuleResults,
+  storeEncodedMessage,
+} from 'rule-results';
 import { Rule, SourceCode } from 'eslint';
 import { SYMBOL_HIGHLIGHTING_RULE, COGNITIVE_COMPLEXITY_RULE } from 'analyzer';
 import { setContext } from 'context';
@@ -188,6 +193,21 @@ describe('#decodeSecondaryLocations', () => {
     expect(decodedIssue.cost).toEqual(encodedMessage.cost);
   });
 
+  it('should decode message stored in rule results', () => {
+    startCollectingRuleResults();
+    const message = storeEncodedMessage(encodedMessage);
+    const ruleResults = stopCollectingRuleResults();
+    const decodedIssue = decodeSonarRuntimeIssue(
+      ruleUsingSecondaryLocations,
+      { ...issueWithEncodedMessage, message },
+      ruleResults,
+    );
+    expect(decodedIssue.message).toEqual(encodedMessage.message);
+    expect(decodedIssue.secondaryLocations).toEqual(encodedMessage.secondaryLocations);
+    expect(decodedIssue.cost).toEqual(encodedMessage.cost);
+    expect(storeEncodedMessage(encodedMessage)).toBeUndefined();
+  });
+
   it('should log error when cannot parse secondary locations', () => {
     expect(() =>
       decodeSonarRuntimeIssue(ruleUsingSecondaryLocations, {
@@ -203,12 +223,11 @@ describe('#decodeSecondaryLocations', () => {
   it('should compute symbol highlighting when additional rule', () => {
     const sourceCode = parseJavaScriptSourceFile('let x = 42;', `foo.js`) as SourceCode;
     const linter = new LinterWrapper([], [SYMBOL_HIGHLIGHTING_RULE]);
-    const result = linter.analyze(sourceCode, filePath).issues;
-    expect(result).toHaveLength(1);
-    expect(result[0].ruleId).toEqual(SYMBOL_HIGHLIGHTING_RULE.ruleId);
-    expect(result[0].message).toEqual(
-      `[{\"declaration\":{\"startLine\":1,\"startCol\":4,\"endLine\":1,\"endCol\":5},\"references\":[]}]`,
-    );
+    const { issues, internalResults } = linter.analyze(sourceCode, filePath);
+    expect(issues).toHaveLength(0);
+    expect(internalResults.get(SYMBOL_HIGHLIGHTING_RULE.ruleId)).toEqual([
+      { declaration: { startLine: 1, startCol: 4, endLine: 1, endCol: 5 }, references: [] },
+    ]);
   });
 
   it('should not compute symbol highlighting when no additional rule', () => {
@@ -236,10 +255,43 @@ describe('#decodeSecondaryLocations', () => {
       `foo.js`,
     ) as SourceCode;
     const linter = new LinterWrapper([], [COGNITIVE_COMPLEXITY_RULE]);
-    const result = linter.analyze(sourceCode, filePath).issues;
-    expect(result).toHaveLength(1);
-    expect(result[0].ruleId).toEqual(COGNITIVE_COMPLEXITY_RULE.ruleId);
-    expect(result[0].message).toEqual('6');
+    const { issues, internalResults } = linter.analyze(sourceCode, filePath);
+    expect(issues).toHaveLength(0);
+    expect(internalResults.get(COGNITIVE_COMPLEXITY_RULE.ruleId)).toEqual(6);
+  });
+
+  it('should not execute rules which prerequisites are not satisfied by the file', () => {
+    const sourceCode = parseJavaScriptSourceFile(
+      `const app = createServer();
+       app.listen(8000);`,
+      `foo.js`,
+    ) as SourceCode;
+    const linter = new LinterWrapper([
+      { key: 'x-powered-by', configurations: [] },
+      { key: 'no-unused-expressions', configurations: [] },
+    ]);
+    const fileConfig = linter.getFileConfig(sourceCode);
+    expect(fileConfig.rules).not.toHaveProperty('x-powered-by');
+    expect(fileConfig.rules).toHaveProperty('no-unused-expressions');
+    expect(linter.linterConfig.rules).toHaveProperty('x-powered-by');
+    expect(linter.analyze(sourceCode, filePath).issues).toHaveLength(0);
+  });
+
+  it('should execute rules which prerequisites are satisfied by the file', () => {
+    const sourceCode = parseJavaScriptSourceFile(
+      `const express = require('express');
+       const app = express();
+       app.listen(8000);`,
+      `foo.js`,
+    ) as SourceCode;
+    const linter = new LinterWrapper([
+      { key: 'x-powered-by', configurations: [] },
+      { key: 'no-unused-expressions', configurations: [] },
+    ]);
+    expect(linter.getFileConfig(sourceCode)).toBe(linter.linterConfig);
+    const { issues } = linter.analyze(sourceCode, filePath);
+    expect(issues).toHaveLength(1);
+    expect(issues[0].ruleId).toEqual('x-powered-by');
   });
 
   it('should not report unused expressions when chai lib is used', () => {
@@ -0,0 +1,63 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import {
+  getMemoryUsage,
+  installMemoryTelemetry,
+  isMemoryTelemetryInstalled,
+  uninstallMemoryTelemetry,
+} from 'memory-telemetry';
+
+describe('memory telemetry', () => {
+  afterEach(() => {
+    uninstallMemoryTelemetry();
+  });
+
+  it('should report memory usage', () => {
+    const usage = getMemoryUsage();
+    expect(usage.heapUsed).toBeGreaterThan(0);
+    expect(usage.heapTotal).toBeGreaterThanOrEqual(usage.heapUsed);
+    expect(usage.rss).toBeGreaterThan(0);
+    expect(usage.gcCount).toEqual(0);
+  });
+
+  it('should be installed only once', () => {
+    expect(isMemoryTelemetryInstalled()).toBe(false);
+    installMemoryTelemetry();
+    installMemoryTelemetry();
+    expect(isMemoryTelemetryInstalled()).toBe(true);
+    uninstallMemoryTelemetry();
+    expect(isMemoryTelemetryInstalled()).toBe(false);
+  });
+
+  it('should count garbage collections since last report', async () => {
+    installMemoryTelemetry();
+    let garbage: object[] | undefined = [];
+    for (let i = 0; i < 100_000; i++) {
+      garbage.push({ i, text: `garbage ${i}` });
+    }
+    garbage = undefined;
+    // gc entries are delivered asynchronously
+    await new Promise(resolve => setTimeout(resolve, 100));
+    const usage = getMemoryUsage();
+    expect(usage.gcCount).toBeGreaterThanOrEqual(0);
+    expect(usage.gcMaxPause).toBeLessThanOrEqual(usage.gcPause);
+    expect(getMemoryUsage().gcCount).toEqual(0);
+  });
+});
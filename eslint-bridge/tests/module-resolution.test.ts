@@ -0,0 +1,122 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as ts from 'typescript';
+import * as path from 'path';
+import {
+  createGetCanonicalFileName,
+  getDependencies,
+  getModuleResolutionCache,
+  getPathMappingPatterns,
+  installModuleResolutionCache,
+  invalidateModuleResolution,
+  uninstallModuleResolutionCache,
+} from 'module-resolution';
+
+const fixtures = path.join(__dirname, 'fixtures', 'no-implicit-dependencies');
+
+describe('module resolution', () => {
+  afterEach(() => {
+    uninstallModuleResolutionCache();
+    invalidateModuleResolution();
+  });
+
+  it('should share resolution cache between equivalent compiler options', () => {
+    const cache = getModuleResolutionCache('/project', { baseUrl: '/project/src' });
+    expect(getModuleResolutionCache('/project', { baseUrl: '/project/src' })).toBe(cache);
+    expect(getModuleResolutionCache('/project', { baseUrl: '/project/lib' })).not.toBe(cache);
+    expect(getModuleResolutionCache('/other', { baseUrl: '/project/src' })).not.toBe(cache);
+  });
+
+  it('should canonicalize file names according to case sensitivity', () => {
+    expect(createGetCanonicalFileName(true)('/Project/Src')).toEqual('/Project/Src');
+    expect(createGetCanonicalFileName(false)('/Project/Src')).toEqual('/project/src');
+  });
+
+  it('should ignore case of directories on case-insensitive file systems', () => {
+    const cache = getModuleResolutionCache('/project', {});
+    const sameDirectory = getModuleResolutionCache('/PROJECT', {});
+    expect(sameDirectory === cache).toBe(!ts.sys.useCaseSensitiveFileNames);
+  });
+
+  it('should invalidate resolution cache', () => {
+    const options = { baseUrl: '/project/src' };
+    const cache = getModuleResolutionCache('/project', options);
+    invalidateModuleResolution();
+    expect(getModuleResolutionCache('/project', options)).not.toBe(cache);
+  });
+
+  it('should provide module resolution to watch compiler hosts', () => {
+    installModuleResolutionCache();
+    const tsconfig = path.join(__dirname, 'fixtures', 'ts-project', 'tsconfig.json');
+    const host = ts.createWatchCompilerHost(
+      tsconfig,
+      { noEmit: true },
+      ts.sys,
+      ts.createAbstractBuilder,
+      () => {},
+      () => {},
+    );
+    expect(host.resolveModuleNames).toBeDefined();
+    uninstallModuleResolutionCache();
+    const defaultHost = ts.createWatchCompilerHost(
+      tsconfig,
+      { noEmit: true },
+      ts.sys,
+      ts.createAbstractBuilder,
+      () => {},
+      () => {},
+    );
+    expect(defaultHost.resolveModuleNames).toBeUndefined();
+  });
+
+  it('should cache dependencies of nearest package.json', () => {
+    const file = path.join(fixtures, 'package-json-project', 'file.js');
+    const dependencies = getDependencies(file);
+    expect(dependencies).toEqual(
+      new Set([
+        'dependency',
+        '@namespaced/dependency',
+        'devDependency',
+        'peerDependency',
+        'typed-dependency',
+      ]),
+    );
+    expect(getDependencies(file)).toBe(dependencies);
+    invalidateModuleResolution();
+    expect(getDependencies(file)).not.toBe(dependencies);
+  });
+
+  it('should extract path mapping patterns', () => {
+    const program = {
+      getCompilerOptions: () => ({ paths: { '@app/*': ['src/app/*'], lib: ['src/lib'] } }),
+    } as any as ts.Program;
+    const patterns = getPathMappingPatterns(program);
+    expect(patterns).not.toEqual('matchAll');
+    const [app, lib] = patterns as { isApplicableTo(name: string): boolean }[];
+    expect(app.isApplicableTo('@app/foo')).toBe(true);
+    expect(app.isApplicableTo('@lib/foo')).toBe(false);
+    expect(lib.isApplicableTo('lib')).toBe(true);
+    expect(getPathMappingPatterns(undefined)).toEqual([]);
+    const catchAll = {
+      getCompilerOptions: () => ({ paths: { '*': ['src/*'] } }),
+    } as any as ts.Program;
+    expect(getPathMappingPatterns(catchAll)).toEqual('matchAll');
+  });
+});
@@ -0,0 +1,96 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as fs from 'fs';
+import * as os from 'os';
+import * as path from 'path';
+import { setContext } from 'context';
+import {
+  checkHeapUsage,
+  profileFile,
+  resetProfiling,
+  startProfilingRun,
+  stopProfilingRun,
+} from 'node-profiler';
+
+describe('node profiler', () => {
+  let workDir: string;
+
+  beforeEach(() => {
+    workDir = fs.mkdtempSync(path.join(os.tmpdir(), 'eslint-bridge-'));
+    setContext({ workDir, shouldUseTypeScriptParserForJS: true, sonarlint: false });
+  });
+
+  afterEach(() => {
+    resetProfiling();
+  });
+
+  it('should write CPU profile of a file', () => {
+    expect(profileFile('/project/file.js', () => 42)).toEqual(42);
+    const profile = path.join(workDir, 'eslint-bridge-file.js-1.cpuprofile');
+    expect(fs.existsSync(profile)).toBe(true);
+    expect(JSON.parse(fs.readFileSync(profile, 'utf8')).nodes).toBeDefined();
+  });
+
+  it('should write CPU profile of the whole run', () => {
+    setContext({
+      workDir,
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+      cpuProfile: true,
+    });
+    startProfilingRun();
+    profileFile('/project/file.js', () => 42);
+    stopProfilingRun();
+    expect(fs.readdirSync(workDir)).toEqual(['eslint-bridge.cpuprofile']);
+  });
+
+  it('should not profile the run when disabled', () => {
+    startProfilingRun();
+    stopProfilingRun();
+    expect(fs.readdirSync(workDir)).toEqual([]);
+  });
+
+  it('should write heap snapshot once above threshold', () => {
+    console.log = jest.fn();
+    setContext({
+      workDir,
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+      heapSnapshotThreshold: Number.MIN_VALUE,
+    });
+    checkHeapUsage();
+    checkHeapUsage();
+    expect(fs.readdirSync(workDir)).toEqual(['eslint-bridge.heapsnapshot']);
+    expect(console.log).toHaveBeenCalledWith(
+      expect.stringMatching(/^WARN Node.js heap usage \(\d+ MB\) exceeded 0% of its limit/),
+    );
+  });
+
+  it('should not write heap snapshot below threshold', () => {
+    setContext({
+      workDir,
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+      heapSnapshotThreshold: 1,
+    });
+    checkHeapUsage();
+    expect(fs.readdirSync(workDir)).toEqual([]);
+  });
+});
@@ -0,0 +1,154 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as fs from 'fs';
+import * as os from 'os';
+import * as path from 'path';
+import { setContext } from 'context';
+import {
+  hasFlowPragma,
+  orderParserStrategies,
+  ParserStrategy,
+  recordParserStrategy,
+  resetParserHints,
+  saveParserHints,
+} from 'parser-hints';
+import { buildSourceCode } from 'parser';
+import { SourceCode } from 'eslint';
+
+const DEFAULT: ParserStrategy[] = ['typescript', 'babel-module', 'babel-script'];
+
+describe('parser hints', () => {
+  let workDir: string;
+
+  beforeEach(() => {
+    workDir = fs.mkdtempSync(path.join(os.tmpdir(), 'eslint-bridge-'));
+    setContext({ workDir, shouldUseTypeScriptParserForJS: true, sonarlint: false });
+    resetParserHints();
+    console.log = jest.fn();
+  });
+
+  it('should keep default order without hint', () => {
+    expect(orderParserStrategies('/project/file.js', 'foo();', DEFAULT)).toEqual(DEFAULT);
+  });
+
+  it('should try first strategy which succeeded for file', () => {
+    recordParserStrategy('/project/file.js', 'babel-module', 'typescript');
+    expect(orderParserStrategies('/project/file.js', undefined, DEFAULT)).toEqual([
+      'babel-module',
+      'typescript',
+      'babel-script',
+    ]);
+    expect(orderParserStrategies('/project/other.js', undefined, DEFAULT)).toEqual(DEFAULT);
+
+    recordParserStrategy('/project/file.js', 'typescript', 'typescript');
+    expect(orderParserStrategies('/project/file.js', undefined, DEFAULT)).toEqual(DEFAULT);
+  });
+
+  it('should only use directory hint to choose between babel modes', () => {
+    recordParserStrategy('/project/file.js', 'babel-script', 'typescript');
+    expect(orderParserStrategies('/project/other.js', undefined, DEFAULT)).toEqual([
+      'typescript',
+      'babel-script',
+      'babel-module',
+    ]);
+    expect(orderParserStrategies('/elsewhere/file.js', undefined, DEFAULT)).toEqual(DEFAULT);
+
+    recordParserStrategy('/project/other.js', 'babel-module', 'typescript');
+    expect(orderParserStrategies('/project/another.js', undefined, DEFAULT)).toEqual(DEFAULT);
+  });
+
+  it('should not demote typescript for files analyzed with tsconfigs', () => {
+    recordParserStrategy('/project/file.js', 'babel-module', 'typescript');
+    expect(orderParserStrategies('/project/file.js', undefined, DEFAULT, true)).toEqual(DEFAULT);
+    expect(orderParserStrategies('/project/flow.js', '// @flow
+foo();', DEFAULT, true)).toEqual(
+      DEFAULT,
+    );
+    recordParserStrategy('/project/script.js', 'babel-script', 'typescript');
+    expect(orderParserStrategies('/project/script.js', undefined, DEFAULT, true)).toEqual([
+      'typescript',
+      'babel-script',
+      'babel-module',
+    ]);
+  });
+
+  it('should keep parsing with typescript the siblings of a flow file', () => {
+    const flowFile = {
+      filePath: path.join(workDir, 'flow.js'),
+      fileContent: 'const a: ?string = null;',
+    };
+    const plainFile = { filePath: path.join(workDir, 'plain.js'), fileContent: 'const b = 42;' };
+
+    const flowSourceCode = buildSourceCode(flowFile, 'js') as SourceCode;
+    expect(flowSourceCode.parserServices?.esTreeNodeToTSNodeMap).toBeUndefined();
+    const plainSourceCode = buildSourceCode(plainFile, 'js') as SourceCode;
+    expect(plainSourceCode.parserServices.esTreeNodeToTSNodeMap).toBeDefined();
+    expect(orderParserStrategies(plainFile.filePath, plainFile.fileContent, DEFAULT)).toEqual(
+      DEFAULT,
+    );
+  });
+
+  it('should ignore hint for strategy not available', () => {
+    recordParserStrategy('/project/file.vue', 'babel-script', 'typescript');
+    expect(
+      orderParserStrategies('/project/file.vue', undefined, ['typescript', 'babel-module']),
+    ).toEqual(['typescript', 'babel-module']);
+  });
+
+  it('should try babel first for flow files', () => {
+    expect(orderParserStrategies('/project/file.js', '// @flow\nfoo();', DEFAULT)).toEqual([
+      'babel-module',
+      'typescript',
+      'babel-script',
+    ]);
+  });
+
+  it('should persist hints in working directory', () => {
+    recordParserStrategy('/project/file.js', 'babel-module', 'typescript');
+    saveParserHints();
+    expect(fs.existsSync(path.join(workDir, 'parser-hints.json'))).toBe(true);
+    resetParserHints();
+    expect(orderParserStrategies('/project/file.js', undefined, DEFAULT)[0]).toEqual(
+      'babel-module',
+    );
+  });
+
+  it('should remember strategy used by parser', () => {
+    const filePath = path.join(workDir, 'file.js');
+    // flow syntax without pragma
+    const fileContent = 'const foo: ?string = null;';
+    expect(buildSourceCode({ filePath, fileContent }, 'js')).toBeInstanceOf(SourceCode);
+    expect(orderParserStrategies(filePath, fileContent, DEFAULT)[0]).toEqual('babel-module');
+    expect(buildSourceCode({ filePath, fileContent }, 'js')).toBeInstanceOf(SourceCode);
+    expect(console.log).toHaveBeenCalledTimes(1);
+  });
+
+  it('should detect flow pragma', () => {
+    expect(hasFlowPragma('// @flow\nfoo();')).toBe(true);
+    expect(hasFlowPragma('/* @flow strict */ foo();')).toBe(true);
+    expect(hasFlowPragma('/**\n * Header\n */\n\n// @flow\nfoo();')).toBe(true);
+    expect(hasFlowPragma('#!/usr/bin/env node\n// @flow')).toBe(false);
+    expect(hasFlowPragma('foo(); // @flow')).toBe(false);
+    expect(hasFlowPragma('// @flowtype\nfoo();')).toBe(false);
+    expect(hasFlowPragma('/* @flow')).toBe(true);
+    expect(hasFlowPragma('/* header */')).toBe(false);
+    expect(hasFlowPragma('')).toBe(false);
+  });
+});
@@ -0,0 +1,87 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import * as path from 'path';
+import * as ts from 'typescript';
+import {
+  installProgramTimings,
+  measurePhase,
+  startPhaseTimings,
+  stopPhaseTimings,
+  uninstallProgramTimings,
+} from 'phase-timings';
+
+describe('phase timings', () => {
+  afterEach(() => {
+    stopPhaseTimings();
+    uninstallProgramTimings();
+  });
+
+  it('should not measure when not started', () => {
+    expect(measurePhase('lint', () => 42)).toEqual(42);
+    expect(stopPhaseTimings()).toBeUndefined();
+  });
+
+  it('should exclude nested phases', () => {
+    startPhaseTimings();
+    measurePhase('parse', () => {
+      busy(20);
+      measurePhase('program', () => busy(30));
+    });
+    const timings = stopPhaseTimings()!;
+    expect(timings.program).toBeGreaterThanOrEqual(30);
+    expect(timings.parse).toBeGreaterThanOrEqual(20);
+    expect(timings.parse).toBeLessThan(timings.program);
+    expect(timings.lint).toEqual(0);
+  });
+
+  it('should measure phase throwing an exception', () => {
+    startPhaseTimings();
+    expect(() =>
+      measurePhase('lint', () => {
+        busy(10);
+        throw new Error('failure');
+      }),
+    ).toThrow('failure');
+    expect(stopPhaseTimings()!.lint).toBeGreaterThanOrEqual(10);
+  });
+
+  it('should measure program creation', () => {
+    installProgramTimings();
+    startPhaseTimings();
+    const tsConfig = path.join(__dirname, 'fixtures', 'ts-project', 'tsconfig.json');
+    const host = ts.createWatchCompilerHost(
+      tsConfig,
+      { noEmit: true },
+      ts.sys,
+      ts.createAbstractBuilder,
+      () => {},
+      () => {},
+    );
+    ts.createWatchProgram(host).close();
+    expect(stopPhaseTimings()!.program).toBeGreaterThan(0);
+  });
+});
+
+function busy(ms: number) {
+  const start = Date.now();
+  while (Date.now() - start < ms) {
+    // busy
+  }
+}
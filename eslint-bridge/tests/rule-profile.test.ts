@@ -0,0 +1,74 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { SourceCode } from 'eslint';
+import { collectRuleProfiles, recordRuleTimes } from 'rule-profile';
+import { setContext } from 'context';
+import { LinterWrapper } from 'linter';
+import { parseJavaScriptSourceFile } from './utils/parser-utils';
+
+describe('rule profile', () => {
+  afterEach(() => {
+    collectRuleProfiles();
+  });
+
+  it('should accumulate rule times', () => {
+    recordRuleTimes('a.js', new Map([['slow', 10], ['fast', 1]]));
+    recordRuleTimes('b.js', new Map([['slow', 20], ['fast', 2]]));
+    recordRuleTimes('c.js', new Map([['slow', 5]]));
+    expect(collectRuleProfiles()).toEqual([
+      { ruleId: 'slow', time: 35, files: 3, slowestFile: 'b.js', slowestFileTime: 20 },
+      { ruleId: 'fast', time: 3, files: 2, slowestFile: 'b.js', slowestFileTime: 2 },
+    ]);
+    expect(collectRuleProfiles()).toEqual([]);
+  });
+
+  it('should profile rules when enabled', () => {
+    setContext({
+      workDir: '/tmp/workdir',
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+      profileRules: true,
+    });
+    const linter = new LinterWrapper([{ key: 'no-all-duplicated-branches', configurations: [] }]);
+    const code = 'if (a) { b(); } else { b(); }';
+    const sourceCode = parseJavaScriptSourceFile(code, 'foo.js') as SourceCode;
+    linter.analyze(sourceCode, 'foo.js');
+    const [profile] = collectRuleProfiles();
+    expect(profile).toEqual({
+      ruleId: 'no-all-duplicated-branches',
+      time: expect.any(Number),
+      files: 1,
+      slowestFile: 'foo.js',
+      slowestFileTime: profile.time,
+    });
+  });
+
+  it('should not profile rules by default', () => {
+    setContext({
+      workDir: '/tmp/workdir',
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+    });
+    const linter = new LinterWrapper([{ key: 'no-all-duplicated-branches', configurations: [] }]);
+    const sourceCode = parseJavaScriptSourceFile('if (a) { b(); }', 'foo.js') as SourceCode;
+    linter.analyze(sourceCode, 'foo.js');
+    expect(collectRuleProfiles()).toEqual([]);
+  });
+});
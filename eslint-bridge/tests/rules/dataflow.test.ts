@@ -0,0 +1,60 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { Linter } from 'eslint';
+import { rule as noDeadStore } from 'rules/no-dead-store';
+import { rule as noRedundantAssignments } from 'rules/no-redundant-assignments';
+
+const code = `
+function foo(cond) {
+  let x = 'a';
+  x = 'b';
+  x = 'b';
+  if (cond) {
+    return x;
+  }
+  let Component = 'div';
+  Component = 'span';
+  return <Component />;
+}`;
+
+describe('dataflow', () => {
+  it('should give the same results when shared by several rules', () => {
+    const deadStores = verify({ 'no-dead-store': 'error' });
+    const redundantAssignments = verify({ 'no-redundant-assignments': 'error' });
+    expect(deadStores.length).toBeGreaterThan(0);
+    expect(redundantAssignments.length).toBeGreaterThan(0);
+
+    const both = verify({ 'no-dead-store': 'error', 'no-redundant-assignments': 'error' });
+    expect(both.filter(issue => issue.ruleId === 'no-dead-store')).toEqual(deadStores);
+    expect(both.filter(issue => issue.ruleId === 'no-redundant-assignments')).toEqual(
+      redundantAssignments,
+    );
+  });
+});
+
+function verify(rules: Linter.RulesRecord) {
+  const linter = new Linter();
+  linter.defineRule('no-dead-store', noDeadStore);
+  linter.defineRule('no-redundant-assignments', noRedundantAssignments);
+  return linter.verify(code, {
+    rules,
+    parserOptions: { ecmaVersion: 2018, sourceType: 'module', ecmaFeatures: { jsx: true } },
+  });
+}
@@ -20,7 +20,7 @@
 import { RuleTester } from 'eslint';
 
 const ruleTester = new RuleTester({ parserOptions: { ecmaVersion: 2018 } });
-import { rule } from 'rules/no-commented-code';
+import { couldBeCode, rule } from 'rules/no-commented-code';
 
 ruleTester.run('Sections of code should not be commented out', rule, {
   valid: [
@@ -164,6 +164,17 @@ ruleTester.run('Sections of code should not be commented out', rule, {
         },
       ],
     },
+    {
+      code: `
+        // const element = <div>some text</div>;
+
+        // const pattern = /some text/;
+
+        // const message = \`some \${text} here\`;
+
+        // const handler = async event => await handle(event);`,
+      errors: 4,
+    },
     {
       code: `
         // var object = {};
@@ -205,3 +216,21 @@ ruleTester.run('Sections of code should not be commented out', rule, {
     },
   ],
 });
+
+describe('couldBeCode', () => {
+  it('should reject adjacent words', () => {
+    expect(couldBeCode('some text')).toBe(false);
+    expect(couldBeCode('foo(); some text')).toBe(false);
+    expect(couldBeCode("it's John's code")).toBe(false);
+  });
+
+  it('should not reject code', () => {
+    expect(couldBeCode('foo\nbar')).toBe(true);
+    expect(couldBeCode('return foo;')).toBe(true);
+    expect(couldBeCode('import type Foo from "some module";')).toBe(true);
+    expect(couldBeCode('const x = "some text"; // some comment')).toBe(true);
+    expect(couldBeCode('x = /[/] text/;')).toBe(true);
+    expect(couldBeCode('x = a / b / c;')).toBe(true);
+    expect(couldBeCode('<p>some text</p>')).toBe(true);
+  });
+});
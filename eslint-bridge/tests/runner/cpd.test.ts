@@ -17,7 +17,7 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-import getCpdTokens, { CpdToken } from 'runner/cpd';
+import getCpdTokens, { CpdToken, encodeCpdTokens } from 'runner/cpd';
 import { join } from 'path';
 import { SourceCode } from 'eslint';
 import { parseTypeScriptSourceFile } from '../utils/parser-utils';
@@ -129,6 +129,18 @@ it('should preserve string literals inside JSX constructs', () => {
   expect(result).toContainEqual(token(7, 16, 7, 21, 'LITERAL'));
 });
 
+it('should encode images in a table', () => {
+  const result = actual(`if (a) { b('x'); } else { b('y'); }`);
+  const encoded = encodeCpdTokens(result);
+  expect(encoded.images).toEqual(['if', '(', 'a', ')', '{', 'b', 'LITERAL', ';', '}', 'else']);
+  expect(encoded.tokens).toHaveLength(result.length);
+  expect(encoded.tokens.map(({ image }) => encoded.images[image])).toEqual(
+    result.map(({ image }) => image),
+  );
+  expect(encoded.tokens[0].location).toEqual(result[0].location);
+  expect(encodeCpdTokens([])).toEqual({ images: [], tokens: [] });
+});
+
 function token(
   startLine: number,
   startCol: number,
@@ -0,0 +1,75 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { SourceCode } from 'eslint';
+import getCpdTokens from 'runner/cpd';
+import getFileData from 'runner/file-data';
+import getHighlighting from 'runner/highlighter';
+import getMetrics from 'runner/metrics';
+import { parseJavaScriptSourceFile } from '../utils/parser-utils';
+
+it('should compute the same data as separate computations', () => {
+  expectSameData(
+    `/* header */
+    // NOSONAR
+    class A {
+      /**
+       * doc
+       */
+      render() {
+        if (this.props.a && this.props.b) {
+          return <div className="some class">{\`text \${42}\`}</div>; // comment
+        }
+        for (const x of 'abc') {
+          console.log(x ? /re/ : 1);
+        }
+      }
+    }
+    const f = () => { switch (a) { case 1: break; } };`,
+    '/some/path/file.jsx',
+  );
+});
+
+it('should compute the same data for Vue files', () => {
+  expectSameData(
+    `<template>
+      <!-- comment -->
+      <p class="some">{{ message }}</p>
+    </template>
+    <script>
+    // comment
+    export default {
+      data() {
+        return { message: 'hello' };
+      }
+    }
+    </script>`,
+    '/some/path/file.vue',
+  );
+});
+
+function expectSameData(code: string, filePath: string) {
+  const sourceCode = parseJavaScriptSourceFile(code, filePath) as SourceCode;
+  [true, false].forEach(ignoreHeaderComments => {
+    const fileData = getFileData(sourceCode, ignoreHeaderComments, 42);
+    expect(fileData.highlights).toEqual(getHighlighting(sourceCode).highlights);
+    expect(fileData.metrics).toEqual(getMetrics(sourceCode, ignoreHeaderComments, 42));
+    expect(fileData.cpdTokens).toEqual(getCpdTokens(sourceCode).cpdTokens);
+  });
+}
@@ -157,6 +157,17 @@ it('should highlight Vue templates', () => {
   ]);
 });
 
+it('should order symbols by declaring node', () => {
+  const result = actual(`function f(a) {}
+var b = 1;`);
+  expect(result.map(symbol => symbol.declaration)).toEqual([
+    location(1, 9, 1, 10), // f
+    location(1, 11, 1, 12), // a
+    location(2, 4, 2, 5), // b
+    location(1, 14, 1, 15), // {
+  ]);
+});
+
 it('should highlight inconsistent Vue templates', () => {
   const filePath = '/some/path/file.vue';
   const fileContent = `
@@ -87,89 +87,92 @@ const expectedResponse = {
     complexity: 1,
     cognitiveComplexity: 2,
   },
-  cpdTokens: [
-    {
-      location: {
-        startLine: 1,
-        startCol: 0,
-        endLine: 1,
-        endCol: 2,
+  cpdTokens: {
+    images: ['if', '(', 'true', ')', '42', ';', 'else'],
+    tokens: [
+      {
+        location: {
+          startLine: 1,
+          startCol: 0,
+          endLine: 1,
+          endCol: 2,
+        },
+        image: 0,
       },
-      image: 'if',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 3,
-        endLine: 1,
-        endCol: 4,
+      {
+        location: {
+          startLine: 1,
+          startCol: 3,
+          endLine: 1,
+          endCol: 4,
+        },
+        image: 1,
       },
-      image: '(',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 4,
-        endLine: 1,
-        endCol: 8,
+      {
+        location: {
+          startLine: 1,
+          startCol: 4,
+          endLine: 1,
+          endCol: 8,
+        },
+        image: 2,
       },
-      image: 'true',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 8,
-        endLine: 1,
-        endCol: 9,
+      {
+        location: {
+          startLine: 1,
+          startCol: 8,
+          endLine: 1,
+          endCol: 9,
+        },
+        image: 3,
       },
-      image: ')',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 10,
-        endLine: 1,
-        endCol: 12,
+      {
+        location: {
+          startLine: 1,
+          startCol: 10,
+          endLine: 1,
+          endCol: 12,
+        },
+        image: 4,
       },
-      image: '42',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 12,
-        endLine: 1,
-        endCol: 13,
+      {
+        location: {
+          startLine: 1,
+          startCol: 12,
+          endLine: 1,
+          endCol: 13,
+        },
+        image: 5,
       },
-      image: ';',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 14,
-        endLine: 1,
-        endCol: 18,
+      {
+        location: {
+          startLine: 1,
+          startCol: 14,
+          endLine: 1,
+          endCol: 18,
+        },
+        image: 6,
       },
-      image: 'else',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 19,
-        endLine: 1,
-        endCol: 21,
+      {
+        location: {
+          startLine: 1,
+          startCol: 19,
+          endLine: 1,
+          endCol: 21,
+        },
+        image: 4,
       },
-      image: '42',
-    },
-    {
-      location: {
-        startLine: 1,
-        startCol: 21,
-        endLine: 1,
-        endCol: 22,
+      {
+        location: {
+          startLine: 1,
+          startCol: 21,
+          endLine: 1,
+          endCol: 22,
+        },
+        image: 5,
       },
-      image: ';',
-    },
-  ],
+    ],
+  },
 };
 
 describe('server', () => {
@@ -191,7 +194,7 @@ describe('server', () => {
   });
 
   it('should respond to JavaScript analysis request', async () => {
-    expect.assertions(2);
+    expect.assertions(4);
     expect(server.listening).toEqual(true);
 
     await post(
@@ -208,14 +211,18 @@ describe('server', () => {
       '/analyze-js',
     );
 
-    expect(JSON.parse(response)).toEqual(expectedResponse);
+    const { memory, timings, ...analysisResponse } = JSON.parse(response);
+    expect(analysisResponse).toEqual(expectedResponse);
+    expect(memory.heapUsed).toBeGreaterThan(0);
+    expect(timings.parse).toBeGreaterThan(0);
+    expect(Object.keys(JSON.parse(response)).pop()).toEqual('timings');
   });
 
   it('should respond to TypeScript analysis request', async () => {
     const filePath = join(__dirname, './fixtures/ts-project/sample.lint.ts');
     const tsConfig = join(__dirname, './fixtures/ts-project/tsconfig.json');
 
-    expect.assertions(2);
+    expect.assertions(4);
     expect(server.listening).toEqual(true);
 
     await post(
@@ -234,7 +241,24 @@ describe('server', () => {
       '/analyze-ts',
     );
 
-    expect(JSON.parse(response)).toEqual(expectedResponse);
+    const { memory, timings, ...analysisResponse } = JSON.parse(response);
+    expect(analysisResponse).toEqual(expectedResponse);
+    expect(timings).toEqual({
+      parse: expect.any(Number),
+      program: expect.any(Number),
+      lint: expect.any(Number),
+      postProcess: expect.any(Number),
+      serialize: expect.any(Number),
+    });
+    expect(memory).toEqual({
+      heapUsed: expect.any(Number),
+      heapTotal: expect.any(Number),
+      rss: expect.any(Number),
+      external: expect.any(Number),
+      gcCount: expect.any(Number),
+      gcPause: expect.any(Number),
+      gcMaxPause: expect.any(Number),
+    });
   }, 10_000);
 
   it('should respond OK! when started', done => {
@@ -0,0 +1,92 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { Linter, Rule } from 'eslint';
+import { startTimeBudget, stopTimeBudget, withTimeBudget } from 'time-budget';
+
+const slowRule: Rule.RuleModule = {
+  create(context: Rule.RuleContext) {
+    return {
+      Identifier: (node: Rule.Node) => {
+        const start = Date.now();
+        while (Date.now() - start < 20) {
+          // busy
+        }
+        context.report({ node, message: 'slow' });
+      },
+    };
+  },
+};
+
+const fastRule: Rule.RuleModule = {
+  create(context: Rule.RuleContext) {
+    return {
+      Identifier: (node: Rule.Node) => context.report({ node, message: 'fast' }),
+    };
+  },
+};
+
+const code = 'a; b; c; d; e;';
+
+describe('time budget', () => {
+  beforeAll(() => {
+    // loads the parser before measuring time
+    verify();
+  });
+
+  afterEach(() => {
+    stopTimeBudget();
+  });
+
+  it('should skip rule exceeding its budget', () => {
+    startTimeBudget({ file: 0, rule: 30 });
+    const messages = verify();
+    expect(stopTimeBudget()).toEqual(['slow']);
+    expect(messages.filter(m => m.ruleId === 'slow')).toHaveLength(2);
+    expect(messages.filter(m => m.ruleId === 'fast')).toHaveLength(5);
+  });
+
+  it('should skip all rules once file exceeds its budget', () => {
+    startTimeBudget({ file: 30, rule: 0 });
+    const messages = verify();
+    expect(stopTimeBudget()).toEqual(['fast', 'slow']);
+    expect(messages.filter(m => m.ruleId === 'slow')).toHaveLength(2);
+    expect(messages.filter(m => m.ruleId === 'fast')).toHaveLength(1);
+  });
+
+  it('should measure but not skip rules which are not skippable', () => {
+    startTimeBudget({ file: 30, rule: 20 });
+    const messages = verify(false);
+    expect(stopTimeBudget()).toEqual([]);
+    expect(messages).toHaveLength(10);
+  });
+
+  it('should execute rules without budget', () => {
+    const messages = verify();
+    expect(stopTimeBudget()).toEqual([]);
+    expect(messages).toHaveLength(10);
+  });
+});
+
+function verify(skippable = true) {
+  const linter = new Linter();
+  linter.defineRule('slow', withTimeBudget('slow', slowRule, skippable));
+  linter.defineRule('fast', withTimeBudget('fast', fastRule, skippable));
+  return linter.verify(code, { rules: { slow: 'error', fast: 'error' } });
+}
@@ -20,7 +20,8 @@
 
 import * as esprima from 'esprima';
 import * as estree from 'estree';
-import { getRegexpRange } from 'utils';
+import { Rule } from 'eslint';
+import { getParsedRegex, getRegexpRange } from 'utils';
 import * as regexpp from 'regexpp';
 
 it('should get range for regexp /s*', () => {
@@ -40,3 +41,17 @@ it('should get range for regexp |/?[a-z]', () => {
   const range = getRegexpRange(literal, alternative);
   expect(range).toStrictEqual([2, 9]);
 });
+
+it('should parse each regexp once', () => {
+  const program = esprima.parse(`/a+b/; 'a+b'; /a+b/g; '(';`);
+  const [literal, string, withFlags, invalid] = program.body.map(
+    statement => (statement as estree.ExpressionStatement).expression,
+  );
+  const context = {} as Rule.RuleContext;
+  const parsed = getParsedRegex(literal, context);
+  expect(parsed).not.toBeNull();
+  expect(getParsedRegex(literal, context)).toBe(parsed);
+  expect(getParsedRegex(string, context)).toBe(parsed);
+  expect(getParsedRegex(withFlags, context)).not.toBe(parsed);
+  expect(getParsedRegex(invalid, context)).toBeNull();
+});
@@ -20,8 +20,10 @@
 package org.sonar.plugins.javascript;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -39,6 +41,9 @@ public class AbstractChecks {
   private final CheckFactory checkFactory;
   private final CustomRuleRepository[] customRuleRepositories;
   private final Set<Checks<JavaScriptCheck>> checksByRepository = new HashSet<>();
+  // rule keys are looked up for each issue, they are indexed when checks are added instead of searched in all repositories
+  private final Map<JavaScriptCheck, RuleKey> ruleKeysByCheck = new HashMap<>();
+  private final Map<String, RuleKey> ruleKeysByEslintKey = new HashMap<>();
 
   public AbstractChecks(CheckFactory checkFactory, @Nullable CustomRuleRepository[] customRuleRepositories) {
     this.checkFactory = checkFactory;
@@ -51,9 +56,20 @@ public class AbstractChecks {
   }
 
   private void doAddChecks(String repositoryKey, Iterable<Class<? extends JavaScriptCheck>> checkClass) {
-    checksByRepository.add(checkFactory
+    Checks<JavaScriptCheck> checks = checkFactory
       .<JavaScriptCheck>create(repositoryKey)
-      .addAnnotatedChecks(checkClass));
+      .addAnnotatedChecks(checkClass);
+    checksByRepository.add(checks);
+    for (JavaScriptCheck check : checks.all()) {
+      RuleKey ruleKey = checks.ruleKey(check);
+      if (ruleKey != null) {
+        ruleKeysByCheck.put(check, ruleKey);
+        if (check instanceof EslintBasedCheck) {
+          // when several repositories define the same ESLint key, the first one added wins
+          ruleKeysByEslintKey.putIfAbsent(((EslintBasedCheck) check).eslintKey(), ruleKey);
+        }
+      }
+    }
   }
 
   private void addCustomChecks(CustomRuleRepository.Language language) {
@@ -90,33 +106,11 @@ public class AbstractChecks {
 
   @Nullable
   public RuleKey ruleKeyFor(JavaScriptCheck check) {
-    RuleKey ruleKey;
-
-    for (Checks<JavaScriptCheck> checks : checksByRepository) {
-      ruleKey = checks.ruleKey(check);
-
-      if (ruleKey != null) {
-        return ruleKey;
-      }
-    }
-    return null;
+    return ruleKeysByCheck.get(check);
   }
 
   @Nullable
   public RuleKey ruleKeyByEslintKey(String eslintKey) {
-    RuleKey ruleKey;
-
-    for (Checks<JavaScriptCheck> checks : checksByRepository) {
-      for (JavaScriptCheck check : checks.all()) {
-        if (check instanceof EslintBasedCheck && ((EslintBasedCheck) check).eslintKey().equals(eslintKey)) {
-          ruleKey = checks.ruleKey(check);
-          if (ruleKey != null) {
-            return ruleKey;
-          }
-        }
-      }
-
-    }
-    return null;
+    return ruleKeysByEslintKey.get(eslintKey);
   }
 }
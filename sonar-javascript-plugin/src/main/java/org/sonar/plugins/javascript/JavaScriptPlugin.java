@@ -80,6 +80,10 @@ public class JavaScriptPlugin implements Plugin {
   public static final String TSCONFIG_PATH = "sonar.typescript.tsconfigPath";
   public static final String PROPERTY_KEY_MAX_FILE_SIZE = "sonar.javascript.maxFileSize";
 
+  public static final String METRICS_ONLY_FILE_SIZE = "sonar.javascript.metricsOnlyFileSize";
+  public static final String METRICS_ONLY_TOKENS = "sonar.javascript.metricsOnlyTokens";
+  public static final String METRICS_ONLY_CPD = "sonar.javascript.metricsOnlyCpd";
+
   @Override
   public void define(Context context) {
     context.addExtensions(
@@ -153,6 +157,42 @@ public class JavaScriptPlugin implements Plugin {
         .defaultValue("1000")
         .build(),
 
+      PropertyDefinition.builder(METRICS_ONLY_FILE_SIZE)
+        .name("Size of files analyzed for metrics only")
+        .description(
+          "Threshold for the size of files (in kilobytes) above which rules are not executed, " +
+          "only metrics and duplications are computed. Use 0 to disable."
+        )
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(GENERAL)
+        .category(JS_TS_CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue("0")
+        .build(),
+
+      PropertyDefinition.builder(METRICS_ONLY_TOKENS)
+        .name("Number of tokens of files analyzed for metrics only")
+        .description(
+          "Threshold for the number of tokens of files above which rules are not executed, " +
+          "only metrics and duplications are computed. Use 0 to disable."
+        )
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(GENERAL)
+        .category(JS_TS_CATEGORY)
+        .type(PropertyType.INTEGER)
+        .defaultValue("0")
+        .build(),
+
+      PropertyDefinition.builder(METRICS_ONLY_CPD)
+        .name("Duplications of files analyzed for metrics only")
+        .description("True to compute duplications of files analyzed for metrics only.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(GENERAL)
+        .category(JS_TS_CATEGORY)
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("true")
+        .build(),
+
       PropertyDefinition.builder(JavaScriptPlugin.IGNORE_HEADER_COMMENTS)
         .defaultValue(JavaScriptPlugin.IGNORE_HEADER_COMMENTS_DEFAULT_VALUE.toString())
         .name("Ignore header comments")
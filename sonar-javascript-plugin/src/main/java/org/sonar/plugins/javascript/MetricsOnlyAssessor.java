@@ -0,0 +1,60 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.Configuration;
+
+/**
+ * Decides which files are analyzed in "metrics-only" mode: they are still parsed to compute metrics (including
+ * NCLOC data) and optionally CPD tokens, but no rule is executed on them. This is a tier between files analyzed
+ * fully and files excluded by {@link JavaScriptExclusionsFileFilter}, meant for large legitimate files
+ * (generated code, fixtures) which are very expensive to lint.
+ * <p>
+ * Files are assessed on their size here, and on their number of tokens by eslint-bridge once they are parsed.
+ */
+public class MetricsOnlyAssessor {
+
+  private final long maxFileSizeKb;
+  private final int maxTokens;
+  private final boolean saveCpd;
+
+  public MetricsOnlyAssessor(Configuration configuration, boolean isSonarLint) {
+    // in SonarLint files are analyzed one by one on demand, issues are always expected
+    this.maxFileSizeKb = isSonarLint ? 0 : configuration.getLong(JavaScriptPlugin.METRICS_ONLY_FILE_SIZE).orElse(0L);
+    this.maxTokens = isSonarLint ? 0 : configuration.getInt(JavaScriptPlugin.METRICS_ONLY_TOKENS).orElse(0);
+    this.saveCpd = configuration.getBoolean(JavaScriptPlugin.METRICS_ONLY_CPD).orElse(true);
+  }
+
+  public boolean isMetricsOnly(InputFile file) {
+    return maxFileSizeKb > 0 && SizeAssessor.hasExcessiveSize(file, maxFileSizeKb * 1000);
+  }
+
+  /**
+   * Number of tokens above which eslint-bridge analyzes a file in metrics-only mode, 0 when disabled
+   */
+  public int maxTokens() {
+    return Math.max(maxTokens, 0);
+  }
+
+  public boolean saveCpd() {
+    return saveCpd;
+  }
+}
@@ -22,17 +22,19 @@ package org.sonar.plugins.javascript.eslint;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
-import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.batch.sensor.symbol.NewSymbol;
@@ -46,24 +48,31 @@ import org.sonar.api.notifications.AnalysisWarnings;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.javascript.checks.ParsingErrorCheck;
 import org.sonar.plugins.javascript.AbstractChecks;
 import org.sonar.plugins.javascript.CancellationException;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
+import org.sonar.plugins.javascript.MetricsOnlyAssessor;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisRequest;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer.CpdToken;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Highlight;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer.HighlightedSymbol;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Issue;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Location;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Metrics;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.ParsingError;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.ParsingErrorCode;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.PhaseTimings;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Rule;
 import org.sonarsource.nodejs.NodeCommandException;
 
 abstract class AbstractEslintSensor implements Sensor {
   private static final Logger LOG = Loggers.get(AbstractEslintSensor.class);
+  private static final Profiler PROFILER = Profiler.createIfDebug(LOG);
+  // internal property to write to the working directory a CPU profile of the analysis of the files matching these patterns
+  private static final String CPU_PROFILE_FILES_PROPERTY = "sonar.javascript.node.cpuProfileFiles";
+  // internal property to save analysis results on a dedicated thread while eslint-bridge analyzes the next files
+  static final String BACKGROUND_PERSISTENCE_PROPERTY = "sonar.javascript.backgroundPersistence";
+  // number of responses waiting to be saved above which the analysis waits
+  private static final int PERSISTENCE_QUEUE_CAPACITY = 8;
 
   private final NoSonarFilter noSonarFilter;
   private final FileLinesContextFactory fileLinesContextFactory;
@@ -80,6 +89,11 @@ abstract class AbstractEslintSensor implements Sensor {
 
   SensorContext context;
   private boolean failFast;
+  private MetricsOnlyAssessor metricsOnlyAssessor;
+  private final List<InputFile> metricsOnlyFiles = new ArrayList<>();
+  private AnalysisTimeReport analysisTimeReport;
+  private FilePredicate cpuProfileFiles;
+  private BackgroundPersister persister;
 
   AbstractEslintSensor(AbstractChecks checks, NoSonarFilter noSonarFilter,
                        FileLinesContextFactory fileLinesContextFactory, EslintBridgeServer eslintBridgeServer,
@@ -111,6 +125,12 @@ abstract class AbstractEslintSensor implements Sensor {
     failFast = context.config().getBoolean("sonar.internal.analysis.failFast").orElse(false);
     environments = Arrays.asList(context.config().getStringArray(JavaScriptPlugin.ENVIRONMENTS));
     globals = Arrays.asList(context.config().getStringArray(JavaScriptPlugin.GLOBALS));
+    metricsOnlyAssessor = new MetricsOnlyAssessor(context.config(), context.runtime().getProduct() == SonarProduct.SONARLINT);
+    metricsOnlyFiles.clear();
+    analysisTimeReport = new AnalysisTimeReport();
+    String[] cpuProfilePatterns = context.config().getStringArray(CPU_PROFILE_FILES_PROPERTY);
+    cpuProfileFiles = cpuProfilePatterns.length == 0 ? context.fileSystem().predicates().none()
+      : context.fileSystem().predicates().matchesPathPatterns(cpuProfilePatterns);
     try {
       List<InputFile> inputFiles = getInputFiles();
       if (inputFiles.isEmpty()) {
@@ -118,7 +138,16 @@ abstract class AbstractEslintSensor implements Sensor {
         return;
       }
       eslintBridgeServer.startServerLazily(context);
-      analyzeFiles(inputFiles);
+      long start = System.nanoTime();
+      try (BackgroundPersister backgroundPersister = startBackgroundPersister()) {
+        persister = backgroundPersister;
+        analyzeFiles(inputFiles);
+      } finally {
+        persister = null;
+      }
+      logMetricsOnlyFiles();
+      reportAnalysisTimes(System.nanoTime() - start);
+      reportRuleProfiles();
     } catch (CancellationException e) {
       // do not propagate the exception
       LOG.info(e.toString());
@@ -143,10 +172,62 @@ abstract class AbstractEslintSensor implements Sensor {
     }
   }
 
+  @Nullable
+  private BackgroundPersister startBackgroundPersister() {
+    if (context.config().getBoolean(BACKGROUND_PERSISTENCE_PROPERTY).orElse(false)) {
+      return new BackgroundPersister(PERSISTENCE_QUEUE_CAPACITY);
+    }
+    return null;
+  }
+
   abstract void analyzeFiles(List<InputFile> inputFiles) throws IOException;
 
+  /**
+   * Used to name the files written by the sensor in the working directory
+   */
+  abstract String reportName();
+
   protected abstract List<InputFile> getInputFiles();
 
+  AnalysisRequest analysisRequest(InputFile file, @Nullable String fileContent, @Nullable List<String> tsConfigs) {
+    AnalysisRequest request = new AnalysisRequest(file.absolutePath(), file.type().toString(), fileContent, ignoreHeaderComments(), tsConfigs);
+    request.metricsOnly = metricsOnlyAssessor.isMetricsOnly(file);
+    request.metricsOnlyTokens = metricsOnlyAssessor.maxTokens();
+    request.metricsOnlyCpd = metricsOnlyAssessor.saveCpd();
+    request.cpuProfile = cpuProfileFiles.apply(file);
+    return request;
+  }
+
+  private void logMetricsOnlyFiles() {
+    if (metricsOnlyFiles.isEmpty()) {
+      return;
+    }
+    LOG.info("{} file(s) were analyzed for metrics only because of their size or number of tokens, " +
+      "see \"{}\" and \"{}\"", metricsOnlyFiles.size(), JavaScriptPlugin.METRICS_ONLY_FILE_SIZE, JavaScriptPlugin.METRICS_ONLY_TOKENS);
+    metricsOnlyFiles.forEach(file -> LOG.debug("File {} was analyzed for metrics only", file.uri()));
+  }
+
+  private void reportAnalysisTimes(long elapsedNanos) {
+    if (context.runtime().getProduct() == SonarProduct.SONARLINT) {
+      return;
+    }
+    analysisTimeReport.report(elapsedNanos, workDirFile("eslint-bridge-analysis-times-" + reportName() + ".json"));
+  }
+
+  private Path workDirFile(String fileName) {
+    return context.fileSystem().workDir().toPath().resolve(fileName);
+  }
+
+  private void reportRuleProfiles() {
+    List<EslintBridgeServer.RuleProfile> profiles = eslintBridgeServer.ruleProfiles();
+    if (profiles.isEmpty()) {
+      return;
+    }
+    RuleProfileReport report = new RuleProfileReport(profiles, checks);
+    report.log();
+    report.write(workDirFile("eslint-bridge-rule-profile-" + reportName() + ".json"));
+  }
+
   private void processParsingError(SensorContext sensorContext, InputFile inputFile, ParsingError parsingError) {
     Integer line = parsingError.line;
     String message = parsingError.message;
@@ -202,12 +283,58 @@ abstract class AbstractEslintSensor implements Sensor {
       || !StandardCharsets.UTF_8.equals(file.charset());
   }
 
-  protected void processResponse(InputFile file, AnalysisResponse response) {
+  /**
+   * Saves the results of the file, on the background persister thread when enabled. 'start' is the value of
+   * System.nanoTime() before the file was sent to eslint-bridge, the analysis time of the file doesn't include
+   * the time its results waited to be saved.
+   */
+  protected void processResponse(InputFile file, AnalysisResponse response, long start) {
+    long received = System.nanoTime();
+    if (persister != null) {
+      persister.submit(() -> persistResponse(file, response, received - start));
+    } else {
+      persistResponse(file, response, received - start);
+    }
+  }
+
+  private void persistResponse(InputFile file, AnalysisResponse response, long responseNanos) {
+    PROFILER.startDebug("Saving results of " + file);
+    long start = System.nanoTime();
+    saveResults(file, response);
+    long persistNanos = System.nanoTime() - start;
+    PhaseTimings timings = response.timings;
+    timings.persist = EslintBridgeServerImpl.toMillis(persistNanos);
+    analysisTimeReport.record(file.toString(), responseNanos + persistNanos, timings);
+    PROFILER
+      .addContext("parse", Math.round(timings.parse))
+      .addContext("program", Math.round(timings.program))
+      .addContext("lint", Math.round(timings.lint))
+      .addContext("postProcess", Math.round(timings.postProcess))
+      .addContext("serialize", Math.round(timings.serialize))
+      .addContext("transport", Math.round(timings.transport))
+      .addContext("deserialize", Math.round(timings.deserialize))
+      .stopDebug();
+  }
+
+  private void saveResults(InputFile file, AnalysisResponse response) {
     if (response.parsingError != null) {
       processParsingError(context, file, response.parsingError);
       return;
     }
 
+    if (response.metricsOnly) {
+      metricsOnlyFiles.add(file);
+      saveMetrics(file, response.metrics);
+      if (metricsOnlyAssessor.saveCpd()) {
+        saveCpd(file, response.cpdTokens);
+      }
+      return;
+    }
+
+    if (response.skippedRules.length > 0) {
+      LOG.warn("Rules {} exceeded their time budget and were skipped on file {}", String.join(", ", response.skippedRules), file.uri());
+    }
+
     // it's important to have an order here:
     // saving metrics should be done before saving issues so that NO SONAR lines with issues are indeed ignored
     saveMetrics(file, response.metrics);
@@ -224,21 +351,24 @@ abstract class AbstractEslintSensor implements Sensor {
     }
   }
 
-  private void saveHighlights(InputFile file, Highlight[] highlights) {
+  private void saveHighlights(InputFile file, Highlights highlights) {
     NewHighlighting highlighting = context.newHighlighting().onFile(file);
-    for (Highlight highlight : highlights) {
-      highlighting.highlight(highlight.location.toTextRange(file), TypeOfText.valueOf(highlight.textType));
+    Ranges ranges = highlights.ranges;
+    for (int i = 0; i < highlights.size(); i++) {
+      highlighting.highlight(ranges.startLine(i), ranges.startCol(i), ranges.endLine(i), ranges.endCol(i), highlights.typeOfText(i));
     }
     highlighting.save();
   }
 
-  private void saveHighlightedSymbols(InputFile file, HighlightedSymbol[] highlightedSymbols) {
+  private void saveHighlightedSymbols(InputFile file, HighlightedSymbols highlightedSymbols) {
     NewSymbolTable symbolTable = context.newSymbolTable().onFile(file);
-    for (HighlightedSymbol highlightedSymbol : highlightedSymbols) {
-      Location declaration = highlightedSymbol.declaration;
-      NewSymbol newSymbol = symbolTable.newSymbol(declaration.startLine, declaration.startCol, declaration.endLine, declaration.endCol);
-      for (Location reference : highlightedSymbol.references) {
-        newSymbol.newReference(reference.startLine, reference.startCol, reference.endLine, reference.endCol);
+    Ranges ranges = highlightedSymbols.ranges;
+    for (int symbol = 0; symbol < highlightedSymbols.size(); symbol++) {
+      int declaration = highlightedSymbols.declaration(symbol);
+      NewSymbol newSymbol = symbolTable.newSymbol(ranges.startLine(declaration), ranges.startCol(declaration),
+        ranges.endLine(declaration), ranges.endCol(declaration));
+      for (int i = declaration + 1; i < highlightedSymbols.referencesEnd(symbol); i++) {
+        newSymbol.newReference(ranges.startLine(i), ranges.startCol(i), ranges.endLine(i), ranges.endCol(i));
       }
     }
     symbolTable.save();
@@ -275,10 +405,11 @@ abstract class AbstractEslintSensor implements Sensor {
       .save();
   }
 
-  private void saveCpd(InputFile file, CpdToken[] cpdTokens) {
+  private void saveCpd(InputFile file, CpdTokens cpdTokens) {
     NewCpdTokens newCpdTokens = context.newCpdTokens().onFile(file);
-    for (CpdToken cpdToken : cpdTokens) {
-      newCpdTokens.addToken(cpdToken.location.toTextRange(file), cpdToken.image);
+    Ranges ranges = cpdTokens.ranges;
+    for (int i = 0; i < cpdTokens.size(); i++) {
+      newCpdTokens.addToken(ranges.startLine(i), ranges.startCol(i), ranges.endLine(i), ranges.endCol(i), cpdTokens.image(i));
     }
     newCpdTokens.save();
   }
@@ -0,0 +1,150 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.PhaseTimings;
+
+/**
+ * Wall time spent on each file by a sensor, from the request to eslint-bridge until the results are saved.
+ * The slowest files, the distribution of the times and the breakdown of the time per phase are logged at the end
+ * of the sensor and written as JSON to the working directory, e.g. to spot generated files which should be excluded
+ * from the analysis.
+ */
+class AnalysisTimeReport {
+
+  private static final Logger LOG = Loggers.get(AnalysisTimeReport.class);
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+  static final int SLOWEST_FILES = 10;
+
+  private final List<FileTime> fileTimes = new ArrayList<>();
+  private final PhaseTimings phases = new PhaseTimings();
+
+  void record(String file, long nanos, PhaseTimings timings) {
+    fileTimes.add(new FileTime(file, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    phases.parse += timings.parse;
+    phases.program += timings.program;
+    phases.lint += timings.lint;
+    phases.postProcess += timings.postProcess;
+    phases.serialize += timings.serialize;
+    phases.transport += timings.transport;
+    phases.deserialize += timings.deserialize;
+    phases.persist += timings.persist;
+  }
+
+  Summary summary(long elapsedNanos) {
+    List<FileTime> sorted = fileTimes.stream()
+      .sorted(Comparator.comparingLong((FileTime fileTime) -> fileTime.time).reversed())
+      .collect(Collectors.toList());
+    return new Summary(sorted, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), phases);
+  }
+
+  void report(long elapsedNanos, Path reportFile) {
+    if (fileTimes.isEmpty()) {
+      return;
+    }
+    Summary summary = summary(elapsedNanos);
+    LOG.info("Analysis time per file: p50 {} ms, p90 {} ms, p99 {} ms, max {} ms, {} files/s",
+      summary.p50, summary.p90, summary.p99, summary.max, String.format(Locale.ROOT, "%.1f", summary.filesPerSecond));
+    LOG.info("Analysis time per phase: {}", summary.phases.entrySet().stream()
+      .map(phase -> String.format(Locale.ROOT, "%s %d ms (%.1f%%)", phase.getKey(), phase.getValue(), share(phase.getValue(), summary.phases)))
+      .collect(Collectors.joining(", ")));
+    summary.slowestFiles.forEach(fileTime -> LOG.debug("Slow file {} analyzed in {} ms", fileTime.file, fileTime.time));
+    try {
+      Files.write(reportFile, GSON.toJson(summary).getBytes(StandardCharsets.UTF_8));
+      LOG.debug("Analysis time per file was written to {}", reportFile);
+    } catch (IOException e) {
+      LOG.warn("Failed to write analysis time per file to " + reportFile, e);
+    }
+  }
+
+  private static double share(long time, Map<String, Long> phases) {
+    long total = phases.values().stream().mapToLong(Long::longValue).sum();
+    return total > 0 ? (100.0 * time / total) : 0;
+  }
+
+  static class FileTime {
+    final String file;
+    // milliseconds
+    final long time;
+
+    FileTime(String file, long time) {
+      this.file = file;
+      this.time = time;
+    }
+  }
+
+  /**
+   * Times are in milliseconds, percentiles are computed with the nearest-rank method
+   */
+  static class Summary {
+    final int files;
+    final long elapsed;
+    final double filesPerSecond;
+    final long p50;
+    final long p90;
+    final long p99;
+    final long max;
+    final List<FileTime> slowestFiles;
+    // total time of each phase, see PhaseTimings
+    final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private Summary(List<FileTime> sortedFileTimes, long elapsed, PhaseTimings phaseTimings) {
+      this.files = sortedFileTimes.size();
+      this.elapsed = elapsed;
+      this.filesPerSecond = elapsed > 0 ? (1000.0 * files / elapsed) : 0;
+      this.p50 = percentile(sortedFileTimes, 50);
+      this.p90 = percentile(sortedFileTimes, 90);
+      this.p99 = percentile(sortedFileTimes, 99);
+      this.max = sortedFileTimes.get(0).time;
+      this.slowestFiles = new ArrayList<>(sortedFileTimes.subList(0, Math.min(SLOWEST_FILES, files)));
+      phases.put("parse", Math.round(phaseTimings.parse));
+      phases.put("program", Math.round(phaseTimings.program));
+      phases.put("lint", Math.round(phaseTimings.lint));
+      phases.put("postProcess", Math.round(phaseTimings.postProcess));
+      phases.put("serialize", Math.round(phaseTimings.serialize));
+      phases.put("transport", Math.round(phaseTimings.transport));
+      phases.put("deserialize", Math.round(phaseTimings.deserialize));
+      phases.put("persist", Math.round(phaseTimings.persist));
+    }
+
+    private static long percentile(List<FileTime> sortedFileTimes, int percentile) {
+      int rank = (int) Math.ceil(percentile / 100.0 * sortedFileTimes.size());
+      // sorted from the slowest
+      return sortedFileTimes.get(sortedFileTimes.size() - Math.max(rank, 1)).time;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Runs the tasks saving analysis results on a dedicated thread, so that eslint-bridge can analyze the next file
+ * while the results of the previous one are saved.
+ *
+ * Tasks are run one at a time in the order they were submitted. The queue is bounded: when the thread can't keep
+ * up, submitting blocks, which also limits the number of responses held in memory. The first exception thrown by
+ * a task is rethrown once to the sensor, by the next call to {@link #submit(Runnable)} or by {@link #close()}, the
+ * tasks submitted after it are dropped.
+ */
+class BackgroundPersister implements AutoCloseable {
+
+  private static final Logger LOG = Loggers.get(BackgroundPersister.class);
+
+  private static final Runnable END = () -> {
+  };
+
+  private final BlockingQueue<Runnable> queue;
+  private final Thread thread;
+  private volatile RuntimeException failure;
+  private boolean failureThrown;
+  private boolean closed;
+
+  BackgroundPersister(int capacity) {
+    queue = new ArrayBlockingQueue<>(capacity);
+    thread = new Thread(this::run, "eslint-bridge-persister");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run() {
+    try {
+      Runnable task;
+      while ((task = queue.take()) != END) {
+        if (failure == null) {
+          runTask(task);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runTask(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      failure = e;
+    } catch (Error e) {
+      failure = new IllegalStateException(e);
+    }
+  }
+
+  void submit(Runnable task) {
+    if (closed) {
+      throw new IllegalStateException("Background persister is closed");
+    }
+    throwIfFailed();
+    put(task);
+  }
+
+  /**
+   * Waits for the submitted tasks to be done
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      put(END);
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        LOG.warn("Interrupted while waiting for analysis results to be saved");
+        Thread.currentThread().interrupt();
+      }
+    }
+    throwIfFailed();
+  }
+
+  private void put(Runnable task) {
+    try {
+      queue.put(task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while saving analysis results", e);
+    }
+  }
+
+  private void throwIfFailed() {
+    RuntimeException e = failure;
+    if (e != null && !failureThrown) {
+      failureThrown = true;
+      throw e;
+    }
+  }
+}
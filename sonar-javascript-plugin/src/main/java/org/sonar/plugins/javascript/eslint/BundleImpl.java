@@ -26,6 +26,7 @@ import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.plugins.javascript.utils.JfrEvent;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
 import static org.sonarsource.api.sonarlint.SonarLintSide.MULTIPLE_ANALYSES;
@@ -36,6 +37,8 @@ public class BundleImpl implements Bundle {
 
   private static final Logger LOG = Loggers.get(BundleImpl.class);
   private static final Profiler PROFILER = Profiler.createIfDebug(LOG);
+  private static final JfrEvent.Type DEPLOY_EVENT = JfrEvent.define("EslintBridgeDeploy", "eslint-bridge Deploy",
+    JfrEvent.field("location", String.class));
 
   // this archive is created in eslint-bridge module
   private static final String BUNDLE_LOCATION = "/eslint-bridge-1.0.0.tgz";
@@ -54,6 +57,7 @@ public class BundleImpl implements Bundle {
   @Override
   public void deploy(Path deployLocation) throws IOException {
     PROFILER.startDebug("Deploying bundle");
+    JfrEvent event = JfrEvent.begin(DEPLOY_EVENT);
     LOG.debug("Deploying eslint-bridge into {}", deployLocation);
     InputStream bundle = getClass().getResourceAsStream(bundleLocation);
     if (bundle == null) {
@@ -61,6 +65,7 @@ public class BundleImpl implements Bundle {
     }
     BundleUtils.extractFromClasspath(bundle, deployLocation);
     this.deployLocation = deployLocation;
+    event.set("location", deployLocation.toString()).commit();
     PROFILER.stopDebug();
   }
 
@@ -0,0 +1,158 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CPD tokens of a file, read from the 'cpdTokens' of an analysis response, e.g.
+ * {"images":["if","LITERAL"],"tokens":[{"location":{"startLine":1,"startCol":0,"endLine":1,"endCol":2},"image":0}]}.
+ * The vocabulary of a file is small compared to its number of tokens: eslint-bridge sends each image once and tokens
+ * refer to it by index. Images are interned, so that the ones common to all files (keywords, punctuators, "LITERAL")
+ * are the same strings for all files.
+ */
+@JsonAdapter(value = CpdTokens.Adapter.class, nullSafe = false)
+final class CpdTokens {
+
+  final Ranges ranges = new Ranges();
+  private int[] images = new int[16];
+  private String[] imageTable = {};
+
+  int size() {
+    return ranges.size();
+  }
+
+  String image(int index) {
+    return imageTable[images[index]];
+  }
+
+  // Visible for testing
+  int distinctImages() {
+    return imageTable.length;
+  }
+
+  private void readImages(JsonReader in) throws IOException {
+    List<String> table = new ArrayList<>();
+    in.beginArray();
+    while (in.hasNext()) {
+      table.add(in.nextString().intern());
+    }
+    in.endArray();
+    imageTable = table.toArray(new String[0]);
+  }
+
+  private void readToken(JsonReader in) throws IOException {
+    int index = -1;
+    int image = -1;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "location":
+          index = ranges.read(in);
+          break;
+        case "image":
+          image = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (index < 0 || image < 0) {
+      throw new JsonSyntaxException("CPD token without location or image at " + in.getPath());
+    }
+    if (images.length <= index) {
+      images = Arrays.copyOf(images, images.length * 2);
+    }
+    images[index] = image;
+  }
+
+  /**
+   * Images may be read after the tokens referring to them
+   */
+  private void checkImages(JsonReader in) {
+    for (int i = 0; i < size(); i++) {
+      if (images[i] >= imageTable.length) {
+        throw new JsonSyntaxException("CPD token referring to unknown image " + images[i] + " at " + in.getPath());
+      }
+    }
+  }
+
+  static class Adapter extends TypeAdapter<CpdTokens> {
+
+    @Override
+    public CpdTokens read(JsonReader in) throws IOException {
+      CpdTokens cpdTokens = new CpdTokens();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return cpdTokens;
+      }
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "images":
+            cpdTokens.readImages(in);
+            break;
+          case "tokens":
+            in.beginArray();
+            while (in.hasNext()) {
+              cpdTokens.readToken(in);
+            }
+            in.endArray();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      cpdTokens.checkImages(in);
+      return cpdTokens;
+    }
+
+    @Override
+    public void write(JsonWriter out, CpdTokens value) throws IOException {
+      out.beginObject();
+      out.name("images").beginArray();
+      for (String image : value.imageTable) {
+        out.value(image);
+      }
+      out.endArray();
+      out.name("tokens").beginArray();
+      for (int i = 0; i < value.size(); i++) {
+        out.beginObject();
+        out.name("location");
+        value.ranges.write(out, i);
+        out.name("image").value(value.images[i]);
+        out.endObject();
+      }
+      out.endArray();
+      out.endObject();
+    }
+  }
+}
@@ -23,8 +23,6 @@ import java.io.IOException;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.sonar.api.Startable;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonarsource.api.sonarlint.SonarLintSide;
@@ -53,12 +51,24 @@ public interface EslintBridgeServer extends Startable {
 
   TsConfigFile loadTsConfig(String tsConfigAbsolutePath);
 
+  /**
+   * Returns the time spent by each rule since the previous call, empty unless rules are profiled
+   */
+  List<RuleProfile> ruleProfiles();
+
   class AnalysisRequest {
     String filePath;
     String fileType;
     String fileContent;
     boolean ignoreHeaderComments;
     List<String> tsConfigs;
+    // only metrics and CPD tokens are computed when the file is assessed as metrics-only or has more tokens than this
+    boolean metricsOnly;
+    int metricsOnlyTokens;
+    // whether CPD tokens are computed for metrics-only files
+    boolean metricsOnlyCpd = true;
+    // a CPU profile of the analysis of the file is written to the working directory
+    boolean cpuProfile;
 
     AnalysisRequest(String filePath, String fileType, @Nullable String fileContent, boolean ignoreHeaderComments, @Nullable List<String> tsConfigs) {
       this.filePath = filePath;
@@ -88,10 +98,53 @@ public interface EslintBridgeServer extends Startable {
   class AnalysisResponse {
     ParsingError parsingError;
     Issue[] issues = {};
-    Highlight[] highlights = {};
-    HighlightedSymbol[] highlightedSymbols = {};
+    // highlights, symbols and CPD tokens are read into compact structures, see their JSON adapters
+    Highlights highlights = new Highlights();
+    HighlightedSymbols highlightedSymbols = new HighlightedSymbols();
     Metrics metrics = new Metrics();
-    CpdToken[] cpdTokens = {};
+    CpdTokens cpdTokens = new CpdTokens();
+    String[] skippedRules = {};
+    boolean metricsOnly;
+    // absent in SonarLint
+    MemoryUsage memory;
+    PhaseTimings timings = new PhaseTimings();
+  }
+
+  /**
+   * Time in milliseconds spent in each phase of the analysis of a file, the first ones are measured by eslint-bridge
+   * (absent in SonarLint) and the last ones by the plugin
+   */
+  class PhaseTimings {
+    double parse;
+    double program;
+    double lint;
+    double postProcess;
+    double serialize;
+    // HTTP request, including the serialization of the request, without the time spent by eslint-bridge
+    double transport;
+    double deserialize;
+    // saving results with SonarQube API
+    double persist;
+  }
+
+  class RuleProfile {
+    String ruleId;
+    // times in milliseconds
+    double time;
+    int files;
+    String slowestFile;
+    double slowestFileTime;
+  }
+
+  class MemoryUsage {
+    long heapUsed;
+    long heapTotal;
+    long rss;
+    long external;
+    // garbage collections since the previous response, pauses in milliseconds
+    int gcCount;
+    double gcPause;
+    double gcMaxPause;
   }
 
   class ParsingError {
@@ -127,27 +180,6 @@ public interface EslintBridgeServer extends Startable {
     String message;
   }
 
-  class Highlight {
-    Location location;
-    String textType;
-  }
-
-  class HighlightedSymbol {
-    Location declaration;
-    Location[] references;
-  }
-
-  class Location {
-    int startLine;
-    int startCol;
-    int endLine;
-    int endCol;
-
-    TextRange toTextRange(InputFile inputFile) {
-      return inputFile.newRange(this.startLine, this.startCol, this.endLine, this.endCol);
-    }
-  }
-
   class Metrics {
     int[] ncloc = {};
     int[] commentLines = {};
@@ -160,11 +192,6 @@ public interface EslintBridgeServer extends Startable {
     int cognitiveComplexity;
   }
 
-  class CpdToken {
-    Location location;
-    String image;
-  }
-
   class TsConfigResponse {
     final List<String> files;
     final List<String> projectReferences;
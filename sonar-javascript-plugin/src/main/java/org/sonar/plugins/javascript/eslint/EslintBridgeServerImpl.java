@@ -27,7 +27,9 @@ import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import okhttp3.HttpUrl;
@@ -36,12 +38,14 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.plugins.javascript.utils.JfrEvent;
 import org.sonarsource.nodejs.NodeCommand;
 import org.sonarsource.nodejs.NodeCommandBuilder;
 import org.sonarsource.nodejs.NodeCommandException;
@@ -64,10 +68,34 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   // internal property to set "--max-old-space-size" for Node process running this server
   private static final String MAX_OLD_SPACE_SIZE_PROPERTY = "sonar.javascript.node.maxspace";
   private static final String ALLOW_TS_PARSER_JS_FILES = "sonar.javascript.allowTsParserJsFiles";
+  // internal properties to set the time in seconds after which rules are skipped on a file, 0 (default) meaning unlimited
+  // the budgets are checked between the calls of the rule listeners: a single call running longer than the request
+  // timeout still makes eslint-bridge unresponsive
+  private static final String FILE_TIME_BUDGET_PROPERTY = "sonar.javascript.fileTimeBudget";
+  private static final String RULE_TIME_BUDGET_PROPERTY = "sonar.javascript.ruleTimeBudget";
+  // internal property to log and write to the working directory the time spent by each rule at the end of each sensor
+  static final String PROFILE_RULES_PROPERTY = "sonar.javascript.profileRules";
+  // internal properties to write to the working directory a CPU profile of the whole Node process run, and a heap
+  // snapshot when its used heap exceeds a fraction (between 0 and 1) of its limit
+  private static final String CPU_PROFILE_PROPERTY = "sonar.javascript.node.cpuProfile";
+  private static final String HEAP_SNAPSHOT_THRESHOLD_PROPERTY = "sonar.javascript.node.heapSnapshotThreshold";
   private static final Gson GSON = new Gson();
 
   private static final String DEPLOY_LOCATION = "eslint-bridge-bundle";
 
+  private static final JfrEvent.Type REQUEST_EVENT = JfrEvent.define("EslintBridgeRequest", "eslint-bridge Request",
+    JfrEvent.field("endpoint", String.class),
+    JfrEvent.field("file", String.class),
+    JfrEvent.field("bytesOut", long.class),
+    JfrEvent.field("bytesIn", long.class),
+    JfrEvent.field("timeout", boolean.class),
+    JfrEvent.field("error", String.class));
+  private static final JfrEvent.Type START_EVENT = JfrEvent.define("EslintBridgeStart", "eslint-bridge Start",
+    JfrEvent.field("port", int.class));
+  private static final JfrEvent.Type TSCONFIG_EVENT = JfrEvent.define("TsConfigLoading", "tsconfig Loading",
+    JfrEvent.field("tsconfig", String.class),
+    JfrEvent.field("files", int.class));
+
   private final OkHttpClient client;
   private final NodeCommandBuilder nodeCommandBuilder;
   private final int timeoutSeconds;
@@ -79,6 +107,9 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   private final RulesBundles rulesBundles;
   private final NodeDeprecationWarning deprecationWarning;
   private final Path deployLocation;
+  private final MemoryReport memoryReport = new MemoryReport();
+  private Path workDir;
+  private boolean profileRules;
 
   // Used by pico container for dependency injection
   public EslintBridgeServerImpl(NodeCommandBuilder nodeCommandBuilder, Bundle bundle, RulesBundles rulesBundles,
@@ -114,6 +145,7 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   void startServer(SensorContext context, List<Path> deployedBundles) throws IOException {
     PROFILER.startDebug("Starting server");
+    JfrEvent event = JfrEvent.begin(START_EVENT);
     port = findOpenPort();
 
     File scriptFile = new File(bundle.startServerScript());
@@ -122,6 +154,7 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     }
 
     String bundles = deployedBundles.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator));
+    workDir = context.fileSystem().workDir().toPath();
     initNodeCommand(context, scriptFile, context.fileSystem().workDir(), bundles);
 
     LOG.debug("Starting Node.js process to start eslint-bridge server at port " + port);
@@ -133,6 +166,7 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     } else {
       status = Status.STARTED;
     }
+    event.set("port", port).commit();
     PROFILER.stopDebug();
     deprecationWarning.logNodeDeprecation(nodeCommand.getActualNodeVersion());
   }
@@ -156,6 +190,11 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   private void initNodeCommand(SensorContext context, File scriptFile, File workDir, String bundles) throws IOException {
     boolean allowTsParserJsFiles = context.config().getBoolean(ALLOW_TS_PARSER_JS_FILES).orElse(true);
+    int fileTimeBudget = context.config().getInt(FILE_TIME_BUDGET_PROPERTY).orElse(0);
+    int ruleTimeBudget = context.config().getInt(RULE_TIME_BUDGET_PROPERTY).orElse(0);
+    profileRules = context.config().getBoolean(PROFILE_RULES_PROPERTY).orElse(false);
+    boolean cpuProfile = context.config().getBoolean(CPU_PROFILE_PROPERTY).orElse(false);
+    double heapSnapshotThreshold = context.config().getDouble(HEAP_SNAPSHOT_THRESHOLD_PROPERTY).orElse(0.0);
     boolean isSonarLint = context.runtime().getProduct() == SonarProduct.SONARLINT;
     if (isSonarLint) {
       LOG.info("Running in SonarLint context, metrics will not be computed.");
@@ -174,11 +213,16 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
       .minNodeVersion(NodeDeprecationWarning.MIN_NODE_VERSION)
       .configuration(context.config())
       .script(scriptFile.getAbsolutePath())
-      .scriptArgs(String.valueOf(port), hostAddress, workDir.getAbsolutePath(), String.valueOf(allowTsParserJsFiles), String.valueOf(isSonarLint), bundles);
-
-    context.config()
-      .getInt(MAX_OLD_SPACE_SIZE_PROPERTY)
-      .ifPresent(nodeCommandBuilder::maxOldSpaceSize);
+      .scriptArgs(String.valueOf(port), hostAddress, workDir.getAbsolutePath(), String.valueOf(allowTsParserJsFiles), String.valueOf(isSonarLint), bundles,
+        String.valueOf(fileTimeBudget), String.valueOf(ruleTimeBudget), String.valueOf(profileRules),
+        String.valueOf(cpuProfile), String.valueOf(heapSnapshotThreshold));
+
+    Optional<Integer> maxOldSpaceSize = context.config().getInt(MAX_OLD_SPACE_SIZE_PROPERTY);
+    if (maxOldSpaceSize.isPresent()) {
+      nodeCommandBuilder.maxOldSpaceSize(maxOldSpaceSize.get());
+    } else if (!isSonarLint) {
+      NodeHeapSize.compute(context.fileSystem()).ifPresent(nodeCommandBuilder::maxOldSpaceSize);
+    }
 
     nodeCommand = nodeCommandBuilder.build();
   }
@@ -219,30 +263,69 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   @Override
   public AnalysisResponse analyzeJavaScript(AnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-js"), request.filePath);
+    return analyze(request, "analyze-js");
   }
 
   @Override
   public AnalysisResponse analyzeTypeScript(AnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-ts"), request.filePath);
+    return analyze(request, "analyze-ts");
+  }
+
+  private AnalysisResponse analyze(AnalysisRequest request, String endpoint) throws IOException {
+    long start = System.nanoTime();
+    String result = request(GSON.toJson(request), endpoint, request.filePath);
+    long received = System.nanoTime();
+    AnalysisResponse response = response(result, request.filePath);
+    PhaseTimings timings = response.timings;
+    double eslintBridgeTime = timings.parse + timings.program + timings.lint + timings.postProcess + timings.serialize;
+    timings.transport = Math.max(0, toMillis(received - start) - eslintBridgeTime);
+    timings.deserialize = toMillis(System.nanoTime() - received);
+    memoryReport.record(request, response.memory);
+    return response;
+  }
+
+  static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  MemoryReport memoryReport() {
+    return memoryReport;
   }
 
   private String request(String json, String endpoint) throws IOException {
+    return request(json, endpoint, null);
+  }
+
+  private String request(String json, String endpoint, @Nullable String file) throws IOException {
+    JfrEvent event = JfrEvent.begin(REQUEST_EVENT);
+    RequestBody body = RequestBody.create(MediaType.get("application/json"), json);
+    event.set("endpoint", endpoint)
+      .set("file", file)
+      .set("bytesOut", body.contentLength());
     Request request = new Request.Builder()
       .url(url(endpoint))
-      .post(RequestBody.create(MediaType.get("application/json"), json))
+      .post(body)
       .build();
 
+    // the event is committed even when the request fails, so that recordings show unresponsive requests
     try (Response response = client.newCall(request).execute()) {
       // in this case response.body() is never null (according to docs)
-      return response.body().string();
+      ResponseBody responseBody = response.body();
+      String result = responseBody.string();
+      event.set("bytesIn", responseBody.contentLength());
+      return result;
     } catch (InterruptedIOException e) {
+      event.set("timeout", true);
       String msg = "eslint-bridge Node.js process is unresponsive. This is most likely caused by process running out of memory." +
         " Consider setting sonar.javascript.node.maxspace to higher value (e.g. 4096).";
       LOG.error(msg);
+      memoryReport.write(workDir);
       throw new IllegalStateException("eslint-bridge is unresponsive", e);
+    } catch (IOException e) {
+      event.set("error", e.toString());
+      throw e;
+    } finally {
+      event.commit();
     }
   }
 
@@ -305,11 +388,31 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   @Override
   public TsConfigFile loadTsConfig(String filename) {
+    JfrEvent event = JfrEvent.begin(TSCONFIG_EVENT);
     EslintBridgeServer.TsConfigResponse tsConfigResponse = tsConfigFiles(filename);
     if (tsConfigResponse.error != null) {
       LOG.error(tsConfigResponse.error);
     }
-    return new TsConfigFile(filename, emptyListIfNull(tsConfigResponse.files), emptyListIfNull(tsConfigResponse.projectReferences));
+    List<String> files = emptyListIfNull(tsConfigResponse.files);
+    event.set("tsconfig", filename).set("files", files.size()).commit();
+    return new TsConfigFile(filename, files, emptyListIfNull(tsConfigResponse.projectReferences));
+  }
+
+  @Override
+  public List<RuleProfile> ruleProfiles() {
+    if (!profileRules || nodeCommand == null) {
+      return emptyList();
+    }
+    String result = null;
+    try {
+      result = request("", "rule-profiles");
+      return Arrays.asList(GSON.fromJson(result, RuleProfile[].class));
+    } catch (IOException e) {
+      LOG.error("Failed to request time spent by rules", e);
+    } catch (JsonSyntaxException e) {
+      LOG.error("Failed to parse time spent by rules: \n-----\n" + result + "\n-----\n");
+    }
+    return emptyList();
   }
 
   private static <T> List<T> emptyListIfNull(@Nullable List<T> list) {
@@ -318,6 +421,7 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   @Override
   public void clean() {
+    memoryReport.write(workDir);
     if (nodeCommand != null) {
       try {
         request("", "close");
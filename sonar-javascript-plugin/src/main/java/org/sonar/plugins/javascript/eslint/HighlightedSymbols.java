@@ -0,0 +1,133 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Symbols of a file, read from the 'highlightedSymbols' of an analysis response, e.g.
+ * [{"declaration":{"startLine":1,...},"references":[{"startLine":2,...}]}].
+ * The declaration of each symbol is followed by its references in the ranges.
+ */
+@JsonAdapter(value = HighlightedSymbols.Adapter.class, nullSafe = false)
+final class HighlightedSymbols {
+
+  final Ranges ranges = new Ranges();
+  private int[] declarations = new int[16];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Index in the ranges of the declaration of the symbol
+   */
+  int declaration(int symbol) {
+    return declarations[symbol];
+  }
+
+  /**
+   * Index in the ranges after the last reference of the symbol
+   */
+  int referencesEnd(int symbol) {
+    return symbol + 1 < size ? declarations[symbol + 1] : ranges.size();
+  }
+
+  private void read(JsonReader in) throws IOException {
+    int declaration = -1;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "declaration":
+          declaration = ranges.read(in);
+          break;
+        case "references":
+          // eslint-bridge writes the declaration first, so that references directly follow it in the ranges
+          if (declaration < 0) {
+            throw new JsonSyntaxException("Symbol references before declaration at " + in.getPath());
+          }
+          readReferences(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (declaration < 0) {
+      throw new JsonSyntaxException("Symbol without declaration at " + in.getPath());
+    }
+    if (declarations.length == size) {
+      declarations = Arrays.copyOf(declarations, size * 2);
+    }
+    declarations[size++] = declaration;
+  }
+
+  private void readReferences(JsonReader in) throws IOException {
+    in.beginArray();
+    while (in.hasNext()) {
+      ranges.read(in);
+    }
+    in.endArray();
+  }
+
+  static class Adapter extends TypeAdapter<HighlightedSymbols> {
+
+    @Override
+    public HighlightedSymbols read(JsonReader in) throws IOException {
+      HighlightedSymbols symbols = new HighlightedSymbols();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return symbols;
+      }
+      in.beginArray();
+      while (in.hasNext()) {
+        symbols.read(in);
+      }
+      in.endArray();
+      return symbols;
+    }
+
+    @Override
+    public void write(JsonWriter out, HighlightedSymbols value) throws IOException {
+      out.beginArray();
+      for (int symbol = 0; symbol < value.size(); symbol++) {
+        int declaration = value.declaration(symbol);
+        out.beginObject();
+        out.name("declaration");
+        value.ranges.write(out, declaration);
+        out.name("references").beginArray();
+        for (int reference = declaration + 1; reference < value.referencesEnd(symbol); reference++) {
+          value.ranges.write(out, reference);
+        }
+        out.endArray();
+        out.endObject();
+      }
+      out.endArray();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+/**
+ * Syntax highlighting of a file, read from the 'highlights' of an analysis response, e.g.
+ * [{"location":{"startLine":1,"startCol":0,"endLine":1,"endCol":4},"textType":"KEYWORD"}].
+ * Types of text are stored as the byte ordinal of {@link TypeOfText}.
+ */
+@JsonAdapter(value = Highlights.Adapter.class, nullSafe = false)
+final class Highlights {
+
+  private static final TypeOfText[] TYPES_OF_TEXT = TypeOfText.values();
+
+  final Ranges ranges = new Ranges();
+  private byte[] types = new byte[16];
+
+  int size() {
+    return ranges.size();
+  }
+
+  TypeOfText typeOfText(int index) {
+    return TYPES_OF_TEXT[types[index]];
+  }
+
+  private void read(JsonReader in) throws IOException {
+    int index = -1;
+    TypeOfText type = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "location":
+          index = ranges.read(in);
+          break;
+        case "textType":
+          type = TypeOfText.valueOf(in.nextString());
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (index < 0 || type == null) {
+      throw new JsonSyntaxException("Highlight without location or type of text at " + in.getPath());
+    }
+    if (types.length <= index) {
+      types = Arrays.copyOf(types, types.length * 2);
+    }
+    types[index] = (byte) type.ordinal();
+  }
+
+  static class Adapter extends TypeAdapter<Highlights> {
+
+    @Override
+    public Highlights read(JsonReader in) throws IOException {
+      Highlights highlights = new Highlights();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return highlights;
+      }
+      in.beginArray();
+      while (in.hasNext()) {
+        highlights.read(in);
+      }
+      in.endArray();
+      return highlights;
+    }
+
+    @Override
+    public void write(JsonWriter out, Highlights value) throws IOException {
+      out.beginArray();
+      for (int i = 0; i < value.size(); i++) {
+        out.beginObject();
+        out.name("location");
+        value.ranges.write(out, i);
+        out.name("textType").value(value.typeOfText(i).name());
+        out.endObject();
+      }
+      out.endArray();
+    }
+  }
+}
@@ -117,10 +117,11 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
 
   private void analyze(InputFile file, List<String> tsConfigs) throws IOException {
     try {
+      long start = System.nanoTime();
       String fileContent = shouldSendFileContent(file) ? file.contents() : null;
-      AnalysisRequest analysisRequest = new AnalysisRequest(file.absolutePath(), file.type().toString(), fileContent, ignoreHeaderComments(), tsConfigs);
+      AnalysisRequest analysisRequest = analysisRequest(file, fileContent, tsConfigs);
       AnalysisResponse response = eslintBridgeServer.analyzeJavaScript(analysisRequest);
-      processResponse(file, response);
+      processResponse(file, response, start);
     } catch (IOException e) {
       LOG.error("Failed to get response while analyzing " + file.uri(), e);
       throw e;
@@ -135,6 +136,11 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
       .collect(Collectors.toList());
   }
 
+  @Override
+  String reportName() {
+    return "javascript";
+  }
+
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor
@@ -0,0 +1,142 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisRequest;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.MemoryUsage;
+
+/**
+ * Keeps track of the Node.js heap usage reported by eslint-bridge after each analyzed file, and writes it to
+ * the working directory, together with the files after which the heap grew the most. This helps finding which
+ * files or tsconfigs are responsible when the Node.js process runs out of memory. Only the most recent files
+ * and the top contributors are kept, so that the report doesn't grow with the size of the project.
+ */
+class MemoryReport {
+
+  private static final Logger LOG = Loggers.get(MemoryReport.class);
+  private static final Gson GSON = new Gson();
+  private static final Comparator<Entry> BY_HEAP_DELTA = Comparator.comparingLong(entry -> entry.heapDelta);
+
+  static final String REPORT_FILE = "eslint-bridge-memory.json";
+  static final int TOP_CONTRIBUTORS = 10;
+  static final int RECENT_FILES = 500;
+
+  private final Deque<Entry> recentEntries = new ArrayDeque<>(RECENT_FILES);
+  // min-heap, so that the smallest of the top contributors is replaced first
+  private final PriorityQueue<Entry> topContributors = new PriorityQueue<>(TOP_CONTRIBUTORS + 1, BY_HEAP_DELTA);
+  private int fileCount;
+  private long previousHeapUsed;
+
+  void record(AnalysisRequest request, @Nullable MemoryUsage memory) {
+    if (memory == null) {
+      return;
+    }
+    long heapDelta = fileCount == 0 ? 0 : (memory.heapUsed - previousHeapUsed);
+    previousHeapUsed = memory.heapUsed;
+    fileCount++;
+    Entry entry = new Entry(request.filePath, request.tsConfigs, memory, heapDelta);
+    if (recentEntries.size() == RECENT_FILES) {
+      recentEntries.removeFirst();
+    }
+    recentEntries.addLast(entry);
+    if (heapDelta > 0) {
+      topContributors.add(entry);
+      if (topContributors.size() > TOP_CONTRIBUTORS) {
+        topContributors.poll();
+      }
+    }
+  }
+
+  /**
+   * Entries of the most recently analyzed files, in analysis order
+   */
+  List<Entry> entries() {
+    return new ArrayList<>(recentEntries);
+  }
+
+  List<Entry> topContributors() {
+    List<Entry> result = new ArrayList<>(topContributors);
+    result.sort(BY_HEAP_DELTA.reversed());
+    return result;
+  }
+
+  void write(@Nullable Path workDir) {
+    if (workDir == null || fileCount == 0) {
+      return;
+    }
+    Path reportFile = workDir.resolve(REPORT_FILE);
+    try {
+      Files.write(reportFile, GSON.toJson(new Report(fileCount, topContributors(), entries())).getBytes(StandardCharsets.UTF_8));
+      LOG.debug("Node.js memory usage per file was written to {}", reportFile);
+    } catch (IOException e) {
+      LOG.debug("Failed to write Node.js memory usage to " + reportFile, e);
+    }
+  }
+
+  static class Entry {
+    final String file;
+    final List<String> tsConfigs;
+    final long heapUsed;
+    final long heapTotal;
+    final long rss;
+    final long heapDelta;
+    final int gcCount;
+    final double gcPause;
+    final double gcMaxPause;
+
+    Entry(String file, @Nullable List<String> tsConfigs, MemoryUsage memory, long heapDelta) {
+      this.file = file;
+      this.tsConfigs = tsConfigs;
+      this.heapUsed = memory.heapUsed;
+      this.heapTotal = memory.heapTotal;
+      this.rss = memory.rss;
+      this.heapDelta = heapDelta;
+      this.gcCount = memory.gcCount;
+      this.gcPause = memory.gcPause;
+      this.gcMaxPause = memory.gcMaxPause;
+    }
+  }
+
+  private static class Report {
+    final int fileCount;
+    final List<Entry> topHeapGrowth;
+    final List<Entry> recentFiles;
+
+    Report(int fileCount, List<Entry> topHeapGrowth, List<Entry> recentFiles) {
+      this.fileCount = fileCount;
+      this.topHeapGrowth = topHeapGrowth;
+      this.recentFiles = recentFiles;
+    }
+  }
+}
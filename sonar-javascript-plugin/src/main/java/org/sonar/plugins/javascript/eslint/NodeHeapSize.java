@@ -0,0 +1,162 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.JavaScriptLanguage;
+import org.sonar.plugins.javascript.TypeScriptLanguage;
+
+/**
+ * Computes the "--max-old-space-size" of the Node.js process running eslint-bridge when it's not configured.
+ * <p>
+ * Memory needed grows with the size of the project, as TypeScript programs hold all the files of a tsconfig. The
+ * estimate is capped by the memory available to the process: the cgroup memory limit when running in a container,
+ * the physical memory otherwise, minus what is reserved for the JVM. The heap size is only ever raised above the
+ * default of Node.js, never lowered.
+ */
+class NodeHeapSize {
+
+  private static final Logger LOG = Loggers.get(NodeHeapSize.class);
+
+  private static final long MB = 1024L * 1024L;
+  private static final int BASE_MB = 1024;
+  // memory used by TypeScript for each MB of source code
+  private static final int MB_PER_SOURCE_MB = 20;
+  private static final int FILES_PER_MB = 10;
+  // below this size, the default of Node.js is kept
+  private static final int NODE_DEFAULT_MB = 2048;
+
+  private static final List<Path> CGROUP_MEMORY_LIMITS = Arrays.asList(
+    // cgroup v2
+    Paths.get("/sys/fs/cgroup/memory.max"),
+    // cgroup v1
+    Paths.get("/sys/fs/cgroup/memory/memory.limit_in_bytes"));
+
+  private NodeHeapSize() {
+  }
+
+  static OptionalInt compute(FileSystem fileSystem) {
+    long fileCount = 0;
+    long totalSize = 0;
+    Iterable<InputFile> inputFiles = fileSystem.inputFiles(fileSystem.predicates().hasLanguages(JavaScriptLanguage.KEY, TypeScriptLanguage.KEY));
+    for (InputFile inputFile : inputFiles) {
+      fileCount++;
+      totalSize += size(inputFile);
+    }
+    OptionalLong availableMemory = availableMemory();
+    OptionalInt heapSize = compute(fileCount, totalSize, availableMemory, Runtime.getRuntime().maxMemory());
+    if (heapSize.isPresent()) {
+      LOG.info("Using --max-old-space-size={} for Node.js process, computed from {} files ({} MB) and {} MB of available memory. " +
+          "Set sonar.javascript.node.maxspace to override it.",
+        heapSize.getAsInt(), fileCount, totalSize / MB, availableMemory.orElse(-1) / MB);
+    } else {
+      LOG.debug("Using default Node.js heap size for {} files ({} MB)", fileCount, totalSize / MB);
+    }
+    return heapSize;
+  }
+
+  /**
+   * Returns the heap size in MB, or empty when the Node.js default is suitable
+   */
+  static OptionalInt compute(long fileCount, long totalSizeBytes, OptionalLong availableMemoryBytes, long jvmMaxHeapBytes) {
+    long estimate = BASE_MB + (totalSizeBytes * MB_PER_SOURCE_MB / MB) + fileCount / FILES_PER_MB;
+    if (estimate <= NODE_DEFAULT_MB) {
+      return OptionalInt.empty();
+    }
+    long heapSize = estimate;
+    if (availableMemoryBytes.isPresent()) {
+      long jvmHeap = jvmMaxHeapBytes == Long.MAX_VALUE ? 0 : jvmMaxHeapBytes;
+      // leave a quarter of the remaining memory to the rest of the Node.js process and the system
+      long cap = (availableMemoryBytes.getAsLong() - jvmHeap) / MB * 3 / 4;
+      if (cap < estimate) {
+        LOG.warn("Node.js process may need {} MB of heap to analyze this project, but only {} MB of memory are available for it. " +
+          "Increase the memory available or set sonar.javascript.node.maxspace.", estimate, Math.max(cap, 0));
+        heapSize = cap;
+      }
+    }
+    return heapSize > NODE_DEFAULT_MB ? OptionalInt.of((int) heapSize) : OptionalInt.empty();
+  }
+
+  private static long size(InputFile inputFile) {
+    try {
+      return Files.size(Paths.get(inputFile.uri()));
+    } catch (IOException | RuntimeException e) {
+      return 0;
+    }
+  }
+
+  private static OptionalLong availableMemory() {
+    OptionalLong physical = physicalMemory();
+    OptionalLong cgroup = cgroupMemoryLimit();
+    if (cgroup.isPresent() && (!physical.isPresent() || cgroup.getAsLong() < physical.getAsLong())) {
+      return cgroup;
+    }
+    return physical;
+  }
+
+  private static OptionalLong physicalMemory() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      long total = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+      if (total > 0) {
+        return OptionalLong.of(total);
+      }
+    }
+    return OptionalLong.empty();
+  }
+
+  private static OptionalLong cgroupMemoryLimit() {
+    for (Path limitFile : CGROUP_MEMORY_LIMITS) {
+      OptionalLong limit = parseMemoryLimit(limitFile);
+      if (limit.isPresent()) {
+        return limit;
+      }
+    }
+    return OptionalLong.empty();
+  }
+
+  // visible for testing
+  static OptionalLong parseMemoryLimit(Path limitFile) {
+    try {
+      if (Files.isReadable(limitFile)) {
+        String content = new String(Files.readAllBytes(limitFile), StandardCharsets.UTF_8).trim();
+        // "max" means no limit for cgroup v2, while v1 uses a huge value
+        return "max".equals(content) ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(content));
+      }
+    } catch (IOException | NumberFormatException e) {
+      LOG.debug("Failed to read memory limit from " + limitFile, e);
+    }
+    return OptionalLong.empty();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Text ranges of an analysis response stored as consecutive ints (start line, start column, end line, end column),
+ * read from the JSON locations of eslint-bridge without creating an object per location
+ */
+final class Ranges {
+
+  private static final int RANGE_SIZE = 4;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] values = new int[INITIAL_CAPACITY * RANGE_SIZE];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  int startLine(int index) {
+    return values[index * RANGE_SIZE];
+  }
+
+  int startCol(int index) {
+    return values[index * RANGE_SIZE + 1];
+  }
+
+  int endLine(int index) {
+    return values[index * RANGE_SIZE + 2];
+  }
+
+  int endCol(int index) {
+    return values[index * RANGE_SIZE + 3];
+  }
+
+  /**
+   * Reads a location object, e.g. {"startLine":1,"startCol":0,"endLine":1,"endCol":4}, and returns its index
+   */
+  int read(JsonReader in) throws IOException {
+    if (values.length < (size + 1) * RANGE_SIZE) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+    int offset = size * RANGE_SIZE;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "startLine":
+          values[offset] = in.nextInt();
+          break;
+        case "startCol":
+          values[offset + 1] = in.nextInt();
+          break;
+        case "endLine":
+          values[offset + 2] = in.nextInt();
+          break;
+        case "endCol":
+          values[offset + 3] = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return size++;
+  }
+
+  /**
+   * Writes the range at the index as a location object, in the same shape as it is read
+   */
+  void write(JsonWriter out, int index) throws IOException {
+    out.beginObject();
+    out.name("startLine").value(startLine(index));
+    out.name("startCol").value(startCol(index));
+    out.name("endLine").value(endLine(index));
+    out.name("endCol").value(endCol(index));
+    out.endObject();
+  }
+}
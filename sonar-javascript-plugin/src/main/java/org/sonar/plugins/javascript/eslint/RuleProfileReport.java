@@ -0,0 +1,106 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.AbstractChecks;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.RuleProfile;
+
+/**
+ * Summary of the time spent by each rule during the analysis, enabled with "sonar.javascript.profileRules".
+ * It is logged at the end of the sensor and written as JSON to the working directory.
+ */
+class RuleProfileReport {
+
+  private static final Logger LOG = Loggers.get(RuleProfileReport.class);
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+  private static final String NO_RULE_KEY = "-";
+
+  private final List<Row> rows;
+  private final double totalTime;
+
+  RuleProfileReport(List<RuleProfile> profiles, AbstractChecks checks) {
+    totalTime = profiles.stream().mapToDouble(profile -> profile.time).sum();
+    rows = profiles.stream()
+      .map(profile -> new Row(profile, checks.ruleKeyByEslintKey(profile.ruleId), totalTime))
+      .collect(Collectors.toList());
+  }
+
+  List<Row> rows() {
+    return rows;
+  }
+
+  void log() {
+    StringBuilder table = new StringBuilder("Time spent by rules, total ")
+      .append(formatTime(totalTime)).append(" ms")
+      .append(String.format(Locale.ROOT, "%n%-40s %-25s %12s %7s  %s", "Rule", "Sonar rule", "Time (ms)", "Share", "Slowest file"));
+    for (Row row : rows) {
+      table.append(String.format(Locale.ROOT, "%n%-40s %-25s %12s %6.1f%%  %s (%s ms)",
+        row.ruleId, row.ruleKey, formatTime(row.time), row.share, row.slowestFile, formatTime(row.slowestFileTime)));
+    }
+    LOG.info(table.toString());
+  }
+
+  void write(Path reportFile) {
+    try {
+      Files.write(reportFile, GSON.toJson(rows).getBytes(StandardCharsets.UTF_8));
+      LOG.info("Time spent by rules was written to {}", reportFile);
+    } catch (IOException e) {
+      LOG.warn("Failed to write time spent by rules to " + reportFile, e);
+    }
+  }
+
+  private static String formatTime(double time) {
+    return String.format(Locale.ROOT, "%.0f", time);
+  }
+
+  static class Row {
+    final String ruleId;
+    final String ruleKey;
+    final double time;
+    final double share;
+    final int files;
+    final String slowestFile;
+    final double slowestFileTime;
+
+    Row(RuleProfile profile, @Nullable RuleKey ruleKey, double totalTime) {
+      this.ruleId = profile.ruleId;
+      // internal rules computing metrics, highlighting or CPD tokens don't have a rule key
+      this.ruleKey = ruleKey == null ? NO_RULE_KEY : ruleKey.toString();
+      this.time = profile.time;
+      this.share = totalTime > 0 ? (100 * profile.time / totalTime) : 0;
+      this.files = profile.files;
+      this.slowestFile = profile.slowestFile;
+      this.slowestFileTime = profile.slowestFileTime;
+    }
+  }
+}
@@ -99,6 +99,11 @@ public class TypeScriptSensor extends AbstractEslintSensor {
       .collect(Collectors.toList());
   }
 
+  @Override
+  String reportName() {
+    return "typescript";
+  }
+
   @Override
   void analyzeFiles(List<InputFile> inputFiles) throws IOException {
     boolean success = false;
@@ -152,10 +157,11 @@ public class TypeScriptSensor extends AbstractEslintSensor {
 
   private void analyze(InputFile file, TsConfigFile tsConfigFile) throws IOException {
     try {
+      long start = System.nanoTime();
       String fileContent = shouldSendFileContent(file) ? file.contents() : null;
-      AnalysisRequest request = new AnalysisRequest(file.absolutePath(), file.type().toString(), fileContent, ignoreHeaderComments(), singletonList(tsConfigFile.filename));
+      AnalysisRequest request = analysisRequest(file, fileContent, singletonList(tsConfigFile.filename));
       AnalysisResponse response = eslintBridgeServer.analyzeTypeScript(request);
-      processResponse(file, response);
+      processResponse(file, response, start);
     } catch (IOException e) {
       LOG.error("Failed to get response while analyzing " + file, e);
       throw e;
@@ -30,11 +30,15 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.utils.JfrEvent;
 import org.sonarsource.analyzer.commons.ExternalReportProvider;
 
 abstract class AbstractExternalIssuesSensor implements Sensor {
 
   private static final Logger LOG = Loggers.get(AbstractExternalIssuesSensor.class);
+  private static final JfrEvent.Type IMPORT_EVENT = JfrEvent.define("ExternalReportImport", "External Report Import",
+    JfrEvent.field("linter", String.class),
+    JfrEvent.field("report", String.class));
   static final Gson gson = new Gson();
 
   static final long DEFAULT_REMEDIATION_COST = 5L;
@@ -51,7 +55,11 @@ abstract class AbstractExternalIssuesSensor implements Sensor {
   @Override
   public void execute(SensorContext context) {
     List<File> reportFiles = ExternalReportProvider.getReportFiles(context, reportsPropertyName());
-    reportFiles.forEach(report -> importReport(report, context));
+    reportFiles.forEach(report -> {
+      JfrEvent event = JfrEvent.begin(IMPORT_EVENT);
+      importReport(report, context);
+      event.set("linter", linterName()).set("report", report.getPath()).commit();
+    });
   }
 
   InputFile getInputFile(SensorContext context, String fileName) {
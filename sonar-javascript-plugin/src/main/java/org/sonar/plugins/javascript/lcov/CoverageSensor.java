@@ -39,10 +39,14 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.JavaScriptLanguage;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
 import org.sonar.plugins.javascript.TypeScriptLanguage;
+import org.sonar.plugins.javascript.utils.JfrEvent;
 import org.sonarsource.analyzer.commons.FileProvider;
 
 public class CoverageSensor implements Sensor {
   private static final Logger LOG = Loggers.get(CoverageSensor.class);
+  private static final JfrEvent.Type IMPORT_EVENT = JfrEvent.define("LcovImport", "LCOV Import",
+    JfrEvent.field("reports", String.class),
+    JfrEvent.field("coveredFiles", int.class));
 
   @Override
   public void describe(SensorDescriptor descriptor) {
@@ -85,6 +89,7 @@ public class CoverageSensor implements Sensor {
 
   private static void saveCoverageFromLcovFiles(SensorContext context, List<File> lcovFiles) {
     LOG.info("Analysing {}", lcovFiles);
+    JfrEvent event = JfrEvent.begin(IMPORT_EVENT);
 
     FileSystem fileSystem = context.fileSystem();
     FilePredicate mainFilePredicate = fileSystem.predicates().and(
@@ -102,6 +107,7 @@ public class CoverageSensor implements Sensor {
         fileCoverage.save();
       }
     }
+    event.set("reports", lcovFiles.toString()).set("coveredFiles", coveredFiles.size()).commit();
 
     List<String> unresolvedPaths = parser.unresolvedPaths();
     if (!unresolvedPaths.isEmpty()) {
@@ -0,0 +1,211 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Custom Java Flight Recorder events, so that recordings of the scanner show where the plugin spends its time.
+ *
+ * The plugin is compiled for Java 8, which doesn't provide the JFR API, so event types are created at runtime
+ * with 'jdk.jfr.EventFactory' (Java 11+) through reflection. When the API is not available, or when no recording
+ * is enabling the event, 'begin' returns a no-op event: the only cost is checking whether the type is enabled.
+ * The duration of an event is the time between 'begin' and 'commit'.
+ */
+public class JfrEvent {
+
+  private static final Logger LOG = Loggers.get(JfrEvent.class);
+
+  private static final String CATEGORY = "SonarJS";
+  private static final JfrEvent NO_OP = new JfrEvent(null, null);
+
+  private final Type type;
+  private final Object event;
+
+  private JfrEvent(@Nullable Type type, @Nullable Object event) {
+    this.type = type;
+    this.event = event;
+  }
+
+  public static Field field(String name, Class<?> fieldType) {
+    return new Field(name, fieldType);
+  }
+
+  /**
+   * Defines an event type, to be called once per type, e.g. to initialize a constant. Field types should be
+   * primitive types or String.
+   */
+  public static Type define(String name, String label, Field... fields) {
+    return new Type(name, label, Arrays.asList(fields));
+  }
+
+  public static JfrEvent begin(Type type) {
+    if (!type.isEnabled()) {
+      return NO_OP;
+    }
+    try {
+      Object event = Jfr.newEvent.invoke(type.factory);
+      Jfr.begin.invoke(event);
+      return new JfrEvent(type, event);
+    } catch (ReflectiveOperationException e) {
+      return NO_OP;
+    }
+  }
+
+  /**
+   * The value should have the type of the field, e.g. a Long for a long field
+   */
+  public JfrEvent set(String field, @Nullable Object value) {
+    if (event != null) {
+      try {
+        Jfr.set.invoke(event, type.fieldNames.indexOf(field), value);
+      } catch (ReflectiveOperationException | IllegalArgumentException e) {
+        LOG.debug("Failed to set JFR event field " + field, e);
+      }
+    }
+    return this;
+  }
+
+  public void commit() {
+    if (event != null) {
+      try {
+        Jfr.commit.invoke(event);
+      } catch (ReflectiveOperationException e) {
+        LOG.debug("Failed to commit JFR event", e);
+      }
+    }
+  }
+
+  boolean isNoOp() {
+    return event == null;
+  }
+
+  public static class Field {
+    private final String name;
+    private final Class<?> type;
+
+    private Field(String name, Class<?> type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  public static class Type {
+    private final List<String> fieldNames = new ArrayList<>();
+    // instance of jdk.jfr.EventFactory, null when JFR is not available
+    private final Object factory;
+    private final Object eventType;
+
+    private Type(String name, String label, List<Field> fields) {
+      fields.forEach(field -> fieldNames.add(field.name));
+      Object createdFactory = null;
+      Object createdEventType = null;
+      if (Jfr.AVAILABLE) {
+        try {
+          createdFactory = Jfr.createFactory("org.sonar.javascript." + name, label, fields);
+          createdEventType = Jfr.getEventType.invoke(createdFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          LOG.debug("Failed to create JFR event " + name, e);
+          createdFactory = null;
+        }
+      }
+      this.factory = createdFactory;
+      this.eventType = createdEventType;
+    }
+
+    boolean isEnabled() {
+      if (factory == null) {
+        return false;
+      }
+      try {
+        return (boolean) Jfr.isEnabled.invoke(eventType);
+      } catch (ReflectiveOperationException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Reflective access to the JFR API
+   */
+  private static class Jfr {
+    static final boolean AVAILABLE;
+    static Method newEvent;
+    static Method getEventType;
+    static Method isEnabled;
+    static Method begin;
+    static Method set;
+    static Method commit;
+    private static Method create;
+    private static Constructor<?> annotationElement;
+    private static Constructor<?> valueDescriptor;
+    private static Class<?> nameAnnotation;
+    private static Class<?> labelAnnotation;
+    private static Class<?> categoryAnnotation;
+
+    private Jfr() {
+    }
+
+    static {
+      boolean available;
+      try {
+        Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+        Class<?> event = Class.forName("jdk.jfr.Event");
+        nameAnnotation = Class.forName("jdk.jfr.Name");
+        labelAnnotation = Class.forName("jdk.jfr.Label");
+        categoryAnnotation = Class.forName("jdk.jfr.Category");
+        create = eventFactory.getMethod("create", List.class, List.class);
+        newEvent = eventFactory.getMethod("newEvent");
+        getEventType = eventFactory.getMethod("getEventType");
+        isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+        begin = event.getMethod("begin");
+        set = event.getMethod("set", int.class, Object.class);
+        commit = event.getMethod("commit");
+        annotationElement = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+        valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class);
+        available = true;
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // running on Java 8
+        available = false;
+      }
+      AVAILABLE = available;
+    }
+
+    static Object createFactory(String name, String label, List<Field> fields) throws ReflectiveOperationException {
+      String[] category = {CATEGORY};
+      List<Object> annotations = Arrays.asList(
+        annotationElement.newInstance(nameAnnotation, name),
+        annotationElement.newInstance(labelAnnotation, label),
+        annotationElement.newInstance(categoryAnnotation, category));
+      List<Object> descriptors = new ArrayList<>();
+      for (Field field : fields) {
+        descriptors.add(valueDescriptor.newInstance(field.type, field.name));
+      }
+      return create.invoke(null, annotations, descriptors);
+    }
+  }
+}
@@ -34,7 +34,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class JavaScriptPluginTest {
 
-  private static final int BASE_EXTENSIONS = 24;
+  private static final int BASE_EXTENSIONS = 27;
   private static final int JS_ADDITIONAL_EXTENSIONS = 4;
   private static final int TS_ADDITIONAL_EXTENSIONS = 3;
 
@@ -48,7 +48,7 @@ public class JavaScriptPluginTest {
 
   @Test
   public void should_contain_right_properties_number() throws Exception {
-    assertThat(properties()).hasSize(10);
+    assertThat(properties()).hasSize(13);
   }
 
   @Test
@@ -0,0 +1,74 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.internal.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsOnlyAssessorTest {
+
+  @Test
+  public void should_be_disabled_by_default() {
+    MetricsOnlyAssessor assessor = new MetricsOnlyAssessor(new MapSettings().asConfig(), false);
+    assertThat(assessor.isMetricsOnly(inputFile(2000))).isFalse();
+    assertThat(assessor.maxTokens()).isZero();
+    assertThat(assessor.saveCpd()).isTrue();
+  }
+
+  @Test
+  public void should_assess_file_size() {
+    MapSettings settings = new MapSettings()
+      .setProperty(JavaScriptPlugin.METRICS_ONLY_FILE_SIZE, "1")
+      .setProperty(JavaScriptPlugin.METRICS_ONLY_TOKENS, "5000")
+      .setProperty(JavaScriptPlugin.METRICS_ONLY_CPD, "false");
+    MetricsOnlyAssessor assessor = new MetricsOnlyAssessor(settings.asConfig(), false);
+    assertThat(assessor.isMetricsOnly(inputFile(500))).isFalse();
+    assertThat(assessor.isMetricsOnly(inputFile(2000))).isTrue();
+    assertThat(assessor.maxTokens()).isEqualTo(5000);
+    assertThat(assessor.saveCpd()).isFalse();
+  }
+
+  @Test
+  public void should_be_disabled_in_sonarlint() {
+    MapSettings settings = new MapSettings()
+      .setProperty(JavaScriptPlugin.METRICS_ONLY_FILE_SIZE, "1")
+      .setProperty(JavaScriptPlugin.METRICS_ONLY_TOKENS, "5000");
+    MetricsOnlyAssessor assessor = new MetricsOnlyAssessor(settings.asConfig(), true);
+    assertThat(assessor.isMetricsOnly(inputFile(2000))).isFalse();
+    assertThat(assessor.maxTokens()).isZero();
+  }
+
+  private static DefaultInputFile inputFile(int size) {
+    StringBuilder content = new StringBuilder();
+    while (content.length() < size) {
+      content.append("foo();\n");
+    }
+    return new TestInputFileBuilder("test", "file.js")
+      .setLanguage(JavaScriptLanguage.KEY)
+      .setContents(content.toString())
+      .setCharset(StandardCharsets.UTF_8)
+      .build();
+  }
+}
@@ -51,6 +51,8 @@ public class TypeScriptChecksTest {
       new CustomRuleRepository[]{new TsRepository(), new JsRepository()});
     assertThat(checks.eslintBasedChecks()).hasSize(1);
     assertThat(checks.ruleKeyByEslintKey("key")).isEqualTo(RuleKey.parse("repo:customcheck"));
+    assertThat(checks.ruleKeyFor(checks.eslintBasedChecks().get(0))).isEqualTo(RuleKey.parse("repo:customcheck"));
+    assertThat(checks.ruleKeyFor(new CustomTsCheck())).isNull();
   }
 
   public static class TsRepository implements CustomRuleRepository {
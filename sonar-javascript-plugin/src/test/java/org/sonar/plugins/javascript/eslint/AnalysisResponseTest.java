@@ -0,0 +1,149 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AnalysisResponseTest {
+
+  private static final Gson GSON = new Gson();
+
+  @Test
+  public void should_read_highlights() {
+    AnalysisResponse response = response("{ highlights: [" +
+      "{\"location\": {\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"textType\":\"KEYWORD\"}," +
+      "{\"textType\":\"CONSTANT\",\"location\": {\"endCol\":5,\"endLine\":3,\"startCol\":1,\"startLine\":2}}] }");
+
+    Highlights highlights = response.highlights;
+    assertThat(highlights.size()).isEqualTo(2);
+    assertRange(highlights.ranges, 0, 1, 0, 1, 4);
+    assertThat(highlights.typeOfText(0)).isEqualTo(TypeOfText.KEYWORD);
+    assertRange(highlights.ranges, 1, 2, 1, 3, 5);
+    assertThat(highlights.typeOfText(1)).isEqualTo(TypeOfText.CONSTANT);
+  }
+
+  @Test
+  public void should_read_highlighted_symbols() {
+    AnalysisResponse response = response("{ highlightedSymbols: [" +
+      "{\"declaration\": {\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4}," +
+      "\"references\": [{\"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},{\"startLine\":3,\"startCol\":1,\"endLine\":3,\"endCol\":5}]}," +
+      "{\"declaration\": {\"startLine\":4,\"startCol\":0,\"endLine\":4,\"endCol\":1},\"references\": []}] }");
+
+    HighlightedSymbols symbols = response.highlightedSymbols;
+    assertThat(symbols.size()).isEqualTo(2);
+    assertThat(symbols.declaration(0)).isZero();
+    assertThat(symbols.referencesEnd(0)).isEqualTo(3);
+    assertRange(symbols.ranges, 2, 3, 1, 3, 5);
+    assertThat(symbols.declaration(1)).isEqualTo(3);
+    assertThat(symbols.referencesEnd(1)).isEqualTo(4);
+    assertRange(symbols.ranges, 3, 4, 0, 4, 1);
+  }
+
+  @Test
+  public void should_read_cpd_tokens_with_image_table() {
+    StringBuilder json = new StringBuilder("{ cpdTokens: { tokens: [");
+    for (int i = 1; i <= 100; i++) {
+      json.append("{\"location\": {\"startLine\":").append(i).append(",\"startCol\":0,\"endLine\":").append(i)
+        .append(",\"endCol\":2},\"image\":").append(i % 2).append("},");
+    }
+    json.setLength(json.length() - 1);
+    // images may come after tokens
+    AnalysisResponse response = response(json.append("], images: [\"if\", \"LITERAL\"] } }").toString());
+
+    CpdTokens cpdTokens = response.cpdTokens;
+    assertThat(cpdTokens.size()).isEqualTo(100);
+    assertThat(cpdTokens.distinctImages()).isEqualTo(2);
+    assertThat(cpdTokens.image(0)).isEqualTo("LITERAL");
+    assertThat(cpdTokens.image(99)).isEqualTo("if");
+    assertRange(cpdTokens.ranges, 99, 100, 0, 100, 2);
+  }
+
+  @Test
+  public void should_intern_cpd_images() {
+    String json = "{ cpdTokens: { images: [\"if\"], tokens: [{\"location\": {\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":2},\"image\":0}] } }";
+    assertThat(response(json).cpdTokens.image(0)).isSameAs(response(json).cpdTokens.image(0));
+  }
+
+  @Test
+  public void should_write_highlights_as_read() {
+    String json = "[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"textType\":\"KEYWORD\"}," +
+      "{\"location\":{\"startLine\":2,\"startCol\":1,\"endLine\":3,\"endCol\":5},\"textType\":\"CONSTANT\"}]";
+    assertThat(GSON.toJson(GSON.fromJson(json, Highlights.class))).isEqualTo(json);
+  }
+
+  @Test
+  public void should_write_highlighted_symbols_as_read() {
+    String json = "[{\"declaration\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4}," +
+      "\"references\":[{\"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},{\"startLine\":3,\"startCol\":1,\"endLine\":3,\"endCol\":5}]}," +
+      "{\"declaration\":{\"startLine\":4,\"startCol\":0,\"endLine\":4,\"endCol\":1},\"references\":[]}]";
+    assertThat(GSON.toJson(GSON.fromJson(json, HighlightedSymbols.class))).isEqualTo(json);
+  }
+
+  @Test
+  public void should_write_cpd_tokens_as_read() {
+    String json = "{\"images\":[\"if\",\"LITERAL\"]," +
+      "\"tokens\":[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":2},\"image\":0}," +
+      "{\"location\":{\"startLine\":1,\"startCol\":3,\"endLine\":1,\"endCol\":6},\"image\":1}," +
+      "{\"location\":{\"startLine\":2,\"startCol\":0,\"endLine\":2,\"endCol\":2},\"image\":0}]}";
+    assertThat(GSON.toJson(GSON.fromJson(json, CpdTokens.class))).isEqualTo(json);
+    assertThat(GSON.toJson(new CpdTokens())).isEqualTo("{\"images\":[],\"tokens\":[]}");
+  }
+
+  @Test
+  public void should_default_to_empty() {
+    AnalysisResponse response = response("{ highlights: null }");
+    assertThat(response.highlights.size()).isZero();
+    assertThat(response.highlightedSymbols.size()).isZero();
+    assertThat(response.cpdTokens.size()).isZero();
+  }
+
+  @Test
+  public void should_fail_on_incomplete_elements() {
+    assertThatThrownBy(() -> response("{ highlights: [{\"textType\":\"KEYWORD\"}] }"))
+      .isInstanceOf(JsonSyntaxException.class)
+      .hasMessageContaining("Highlight without location or type of text");
+    assertThatThrownBy(() -> response("{ highlightedSymbols: [{\"references\": []}] }"))
+      .isInstanceOf(JsonSyntaxException.class)
+      .hasMessageContaining("Symbol references before declaration");
+    assertThatThrownBy(() -> response("{ cpdTokens: { tokens: [{\"location\": [] }] } }"))
+      .isInstanceOf(JsonSyntaxException.class);
+    assertThatThrownBy(() -> response("{ cpdTokens: { images: [], tokens: [{\"location\": {\"startLine\":1}, \"image\": 0 }] } }"))
+      .isInstanceOf(JsonSyntaxException.class)
+      .hasMessageContaining("CPD token referring to unknown image 0");
+  }
+
+  private static AnalysisResponse response(String json) {
+    return GSON.fromJson(json, AnalysisResponse.class);
+  }
+
+  private static void assertRange(Ranges ranges, int index, int startLine, int startCol, int endLine, int endCol) {
+    assertThat(ranges.startLine(index)).isEqualTo(startLine);
+    assertThat(ranges.startCol(index)).isEqualTo(startCol);
+    assertThat(ranges.endLine(index)).isEqualTo(endLine);
+    assertThat(ranges.endCol(index)).isEqualTo(endCol);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.PhaseTimings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisTimeReportTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @TempDir
+  Path workDir;
+
+  @Test
+  public void should_compute_percentiles() {
+    AnalysisTimeReport report = new AnalysisTimeReport();
+    for (int i = 1; i <= 100; i++) {
+      report.record("file" + i + ".js", TimeUnit.MILLISECONDS.toNanos(i), new PhaseTimings());
+    }
+    AnalysisTimeReport.Summary summary = report.summary(TimeUnit.SECONDS.toNanos(4));
+    assertThat(summary.files).isEqualTo(100);
+    assertThat(summary.p50).isEqualTo(50);
+    assertThat(summary.p90).isEqualTo(90);
+    assertThat(summary.p99).isEqualTo(99);
+    assertThat(summary.max).isEqualTo(100);
+    assertThat(summary.filesPerSecond).isEqualTo(25.0);
+    assertThat(summary.slowestFiles).hasSize(AnalysisTimeReport.SLOWEST_FILES);
+    assertThat(summary.slowestFiles).extracting(fileTime -> fileTime.file).startsWith("file100.js", "file99.js");
+  }
+
+  @Test
+  public void should_compute_percentiles_of_single_file() {
+    AnalysisTimeReport report = new AnalysisTimeReport();
+    report.record("file.js", TimeUnit.MILLISECONDS.toNanos(42), new PhaseTimings());
+    AnalysisTimeReport.Summary summary = report.summary(0);
+    assertThat(summary.p50).isEqualTo(42);
+    assertThat(summary.p99).isEqualTo(42);
+    assertThat(summary.filesPerSecond).isZero();
+  }
+
+  @Test
+  public void should_aggregate_phases() {
+    AnalysisTimeReport report = new AnalysisTimeReport();
+    report.record("a.ts", TimeUnit.MILLISECONDS.toNanos(100), timings(10, 60));
+    report.record("b.ts", TimeUnit.MILLISECONDS.toNanos(100), timings(20, 10.4));
+    report.report(TimeUnit.SECONDS.toNanos(1), workDir.resolve("times.json"));
+
+    AnalysisTimeReport.Summary summary = report.summary(TimeUnit.SECONDS.toNanos(1));
+    assertThat(summary.phases).containsEntry("parse", 30L).containsEntry("lint", 70L).containsEntry("persist", 0L);
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Analysis time per phase: parse 30 ms (30.0%), program 0 ms (0.0%), lint 70 ms (70.0%)"));
+  }
+
+  @Test
+  public void should_log_and_write_report() throws Exception {
+    Path reportFile = workDir.resolve("times.json");
+    AnalysisTimeReport report = new AnalysisTimeReport();
+    report.report(TimeUnit.SECONDS.toNanos(1), reportFile);
+    assertThat(reportFile).doesNotExist();
+
+    report.record("fast.js", TimeUnit.MILLISECONDS.toNanos(10), new PhaseTimings());
+    report.record("slow.js", TimeUnit.MILLISECONDS.toNanos(500), new PhaseTimings());
+    report.report(TimeUnit.SECONDS.toNanos(1), reportFile);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Analysis time per file: p50 10 ms, p90 500 ms, p99 500 ms, max 500 ms, 2.0 files/s",
+      "Analysis time per phase: parse 0 ms (0.0%), program 0 ms (0.0%), lint 0 ms (0.0%), postProcess 0 ms (0.0%), serialize 0 ms (0.0%), " +
+        "transport 0 ms (0.0%), deserialize 0 ms (0.0%), persist 0 ms (0.0%)");
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Slow file slow.js analyzed in 500 ms");
+    JsonObject json = new Gson().fromJson(new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8), JsonObject.class);
+    assertThat(json.get("files").getAsInt()).isEqualTo(2);
+    assertThat(json.getAsJsonArray("slowestFiles").get(0).getAsJsonObject().get("file").getAsString()).isEqualTo("slow.js");
+  }
+
+  private static PhaseTimings timings(double parse, double lint) {
+    PhaseTimings timings = new PhaseTimings();
+    timings.parse = parse;
+    timings.lint = lint;
+    return timings;
+  }
+}
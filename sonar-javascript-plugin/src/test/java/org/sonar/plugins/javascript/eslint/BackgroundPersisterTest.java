@@ -0,0 +1,95 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BackgroundPersisterTest {
+
+  @Test
+  public void should_run_tasks_in_order_on_another_thread() {
+    List<Integer> done = new ArrayList<>();
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    try (BackgroundPersister persister = new BackgroundPersister(2)) {
+      for (int i = 0; i < 100; i++) {
+        int task = i;
+        persister.submit(() -> {
+          thread.set(Thread.currentThread());
+          done.add(task);
+        });
+      }
+    }
+    assertThat(done).hasSize(100).isSorted();
+    assertThat(thread.get()).isNotSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void should_rethrow_failure_on_close() {
+    List<Integer> done = new ArrayList<>();
+    CountDownLatch submitted = new CountDownLatch(1);
+    BackgroundPersister persister = new BackgroundPersister(10);
+    persister.submit(() -> {
+      await(submitted);
+      done.add(1);
+    });
+    persister.submit(() -> {
+      throw new IllegalStateException("failure");
+    });
+    persister.submit(() -> done.add(3));
+    submitted.countDown();
+
+    assertThatThrownBy(persister::close).isInstanceOf(IllegalStateException.class).hasMessage("failure");
+    assertThat(done).containsExactly(1);
+    // failure is thrown once
+    persister.close();
+  }
+
+  @Test
+  public void should_rethrow_failure_on_submit() {
+    BackgroundPersister persister = new BackgroundPersister(1);
+    persister.submit(() -> {
+      throw new IllegalStateException("failure");
+    });
+    assertThatThrownBy(() -> {
+      while (true) {
+        persister.submit(() -> {
+        });
+      }
+    }).hasMessage("failure");
+    persister.close();
+    assertThatThrownBy(() -> persister.submit(() -> {
+    })).hasMessage("Background persister is closed");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
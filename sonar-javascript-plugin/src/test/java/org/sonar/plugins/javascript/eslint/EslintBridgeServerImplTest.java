@@ -19,7 +19,9 @@
  */
 package org.sonar.plugins.javascript.eslint;
 
+import java.io.Closeable;
 import java.io.File;
+import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -54,6 +56,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assumptions.assumeThat;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.mock;
 import static org.sonar.api.utils.log.LoggerLevel.DEBUG;
@@ -159,6 +162,23 @@ public class EslintBridgeServerImplTest {
     assertThat(eslintBridgeServer.analyzeJavaScript(request).issues).isEmpty();
   }
 
+  @Test
+  public void should_measure_transport_and_deserialization() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    DefaultInputFile inputFile = TestInputFileBuilder.create("foo", "foo.js")
+      .setContents("alert('Fly, you fools!')")
+      .build();
+    AnalysisRequest request = new AnalysisRequest(inputFile.absolutePath(), inputFile.type().toString(), null, true, null);
+    EslintBridgeServer.PhaseTimings timings = eslintBridgeServer.analyzeJavaScript(request).timings;
+    // mock server doesn't send the timings of eslint-bridge
+    assertThat(timings.lint).isZero();
+    assertThat(timings.transport).isPositive();
+    assertThat(timings.deserialize).isPositive();
+  }
+
   @Test
   public void test_init() throws Exception {
     eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
@@ -222,6 +242,17 @@ public class EslintBridgeServerImplTest {
     assertThat(eslintBridgeServer.getCommandInfo()).contains("--max-old-space-size=2048");
   }
 
+  @Test
+  public void should_not_compute_max_old_space_size_in_sonarlint() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    context.setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(4, 4)));
+    eslintBridgeServer.startServer(context, emptyList());
+
+    assertThat(eslintBridgeServer.getCommandInfo()).doesNotContain("--max-old-space-size");
+    assertThat(logTester.logs()).noneMatch(log -> log.contains("Node.js heap size") || log.contains("--max-old-space-size"));
+  }
+
   @Test
   public void should_set_allowTsParserJsFiles_to_false() throws Exception {
     eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
@@ -243,6 +274,78 @@ public class EslintBridgeServerImplTest {
     assertThat(logTester.logs()).contains("allowTsParserJsFiles: true");
   }
 
+  @Test
+  public void should_set_time_budgets() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.javascript.fileTimeBudget", "60")
+      .setProperty("sonar.javascript.ruleTimeBudget", "0"));
+    eslintBridgeServer.startServer(context, emptyList());
+    eslintBridgeServer.stop();
+
+    assertThat(logTester.logs()).contains("fileTimeBudget: 60", "ruleTimeBudget: 0");
+  }
+
+  @Test
+  public void should_get_rule_profiles_when_enabled() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.profileRules", "true"));
+    eslintBridgeServer.startServer(context, emptyList());
+
+    List<EslintBridgeServer.RuleProfile> profiles = eslintBridgeServer.ruleProfiles();
+    assertThat(profiles).hasSize(1);
+    assertThat(profiles.get(0).ruleId).isEqualTo("no-all-duplicated-branches");
+    assertThat(profiles.get(0).time).isEqualTo(12.5);
+    assertThat(profiles.get(0).slowestFile).isEqualTo("abs/path/file1");
+    assertThat(logTester.logs()).contains("profileRules: true");
+  }
+
+  @Test
+  public void should_not_get_rule_profiles_by_default() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    assertThat(eslintBridgeServer.ruleProfiles()).isEmpty();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    assertThat(eslintBridgeServer.ruleProfiles()).isEmpty();
+    assertThat(logTester.logs()).contains("profileRules: false");
+  }
+
+  @Test
+  public void should_pass_profiling_properties_to_node() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.javascript.node.cpuProfile", "true")
+      .setProperty("sonar.javascript.node.heapSnapshotThreshold", "0.8"));
+    eslintBridgeServer.startServer(context, emptyList());
+    eslintBridgeServer.stop();
+
+    assertThat(logTester.logs()).contains("cpuProfile: true", "heapSnapshotThreshold: 0.8");
+  }
+
+  @Test
+  public void should_not_profile_node_by_default() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+    eslintBridgeServer.stop();
+
+    assertThat(logTester.logs()).contains("cpuProfile: false", "heapSnapshotThreshold: 0.0");
+  }
+
+  @Test
+  public void time_budgets_are_unlimited_by_default() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+    eslintBridgeServer.stop();
+
+    assertThat(logTester.logs()).contains("fileTimeBudget: 0", "ruleTimeBudget: 0");
+  }
+
   @Test
   public void test_isAlive() throws Exception {
     eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
@@ -395,6 +498,44 @@ public class EslintBridgeServerImplTest {
       " (e.g. 4096).");
   }
 
+  @Test
+  public void should_record_request_event_when_timeout() throws Exception {
+    // JFR API is available starting from Java 11, tests are compiled for Java 8
+    Class<?> recordingClass;
+    try {
+      recordingClass = Class.forName("jdk.jfr.Recording");
+    } catch (ClassNotFoundException e) {
+      recordingClass = null;
+    }
+    assumeThat(recordingClass).isNotNull();
+
+    eslintBridgeServer = createEslintBridgeServer("timeout.js");
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    Path recordingPath = workDir.resolve("recording.jfr");
+    Object recording = recordingClass.getConstructor().newInstance();
+    recordingClass.getMethod("enable", String.class).invoke(recording, "org.sonar.javascript.EslintBridgeRequest");
+    recordingClass.getMethod("start").invoke(recording);
+    try {
+      assertThatThrownBy(() -> eslintBridgeServer.loadTsConfig("any.ts")).isInstanceOf(IllegalStateException.class);
+    } finally {
+      recordingClass.getMethod("stop").invoke(recording);
+      recordingClass.getMethod("dump", Path.class).invoke(recording, recordingPath);
+      ((Closeable) recording).close();
+    }
+
+    List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+      .getMethod("readAllEvents", Path.class).invoke(null, recordingPath);
+    Method getValue = Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getValue", String.class);
+    assertThat(events).hasSize(1);
+    Object event = events.get(0);
+    assertThat(getValue.invoke(event, "endpoint")).isEqualTo("tsconfig-files");
+    assertThat((long) getValue.invoke(event, "bytesOut")).isPositive();
+    assertThat(getValue.invoke(event, "timeout")).isEqualTo(true);
+    assertThat(getValue.invoke(event, "error")).isNull();
+  }
+
   @Test
   public void test_rule_tostring() {
     EslintBridgeServer.Rule rule = new EslintBridgeServer.Rule("key", emptyList());
@@ -23,7 +23,9 @@ import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -64,6 +66,7 @@ import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.javascript.checks.CheckList;
 import org.sonar.plugins.javascript.JavaScriptChecks;
+import org.sonar.plugins.javascript.JavaScriptPlugin;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisRequest;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
 import org.sonarsource.nodejs.NodeCommandException;
@@ -156,6 +159,36 @@ public class JavaScriptEslintBasedSensorTest {
     assertThat(logTester.logs(LoggerLevel.WARN)).doesNotContain("Custom JavaScript rules are deprecated and API will be removed in future version.");
   }
 
+  @Test
+  public void should_save_results_in_background() throws Exception {
+    AnalysisResponse response = response("{ issues: [{" +
+      "\"line\":1,\"column\":2,\"endLine\":3,\"endColumn\":4,\"ruleId\":\"no-all-duplicated-branches\",\"message\":\"Issue message\", \"secondaryLocations\": []}" +
+      "], metrics: {\"ncloc\":[1, 2, 3],\"functions\":1} }");
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(response);
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.backgroundPersistence", "true"));
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    DefaultInputFile inputFile = createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(context.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_report_failure_when_saving_results_in_background() throws Exception {
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(response("{ parsingError: { message: \"error\", code: \"GENERAL_ERROR\"} }"));
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.javascript.backgroundPersistence", "true")
+      .setProperty("sonar.internal.analysis.failFast", "true"));
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    createInputFile(context);
+    assertThatThrownBy(() -> sensor.execute(context))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Analysis failed (\"sonar.internal.analysis.failFast\"=true)");
+  }
+
   private AnalysisResponse response(String json) {
     return new Gson().fromJson(json, AnalysisResponse.class);
   }
@@ -279,7 +312,9 @@ public class JavaScriptEslintBasedSensorTest {
 
   @Test
   public void should_create_cpd_from_eslint_based_rules() throws Exception {
-    AnalysisResponse responseCpdTokens = response("{ cpdTokens: [{\"location\": { \"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"image\":\"LITERAL\"},{\"location\": { \"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},\"image\":\"if\"}] }");
+    AnalysisResponse responseCpdTokens = response("{ cpdTokens: { images: [\"LITERAL\", \"if\"], tokens: [" +
+      "{\"location\": { \"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"image\":0}," +
+      "{\"location\": { \"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},\"image\":1}] } }");
     when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(responseCpdTokens);
 
     JavaScriptEslintBasedSensor sensor = createSensor();
@@ -303,6 +338,143 @@ public class JavaScriptEslintBasedSensorTest {
   }
 
 
+  @Test
+  public void should_save_results_of_other_rules_when_rules_are_skipped() throws Exception {
+    AnalysisResponse response = response("{ issues: [{" +
+      "\"line\":1,\"column\":2,\"endLine\":3,\"endColumn\":4,\"ruleId\":\"no-all-duplicated-branches\",\"message\":\"Issue message\", \"secondaryLocations\": []}" +
+      "], skippedRules: [\"no-commented-code\", \"file-header\"] }");
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(response);
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    DefaultInputFile inputFile = createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .contains("Rules no-commented-code, file-header exceeded their time budget and were skipped on file " + inputFile.uri());
+  }
+
+  @Test
+  public void should_report_rule_profiles() throws Exception {
+    EslintBridgeServer.RuleProfile slow = ruleProfile("no-all-duplicated-branches", 30);
+    EslintBridgeServer.RuleProfile internal = ruleProfile("internal-cpd", 10);
+    when(eslintBridgeServerMock.ruleProfiles()).thenReturn(Arrays.asList(slow, internal));
+    context.fileSystem().setWorkDir(tempDir.toPath());
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Time spent by rules, total 40 ms") &&
+      log.contains("no-all-duplicated-branches") && log.contains("javascript:S3923") && log.contains("75.0%") && log.contains("internal-cpd"));
+    Path report = tempDir.toPath().resolve("eslint-bridge-rule-profile-javascript.json");
+    assertThat(report).exists();
+    assertThat(new String(Files.readAllBytes(report), StandardCharsets.UTF_8)).contains("\"ruleKey\": \"javascript:S3923\"", "\"ruleKey\": \"-\"");
+  }
+
+  @Test
+  public void should_report_analysis_times() throws Exception {
+    context.fileSystem().setWorkDir(tempDir.toPath());
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    DefaultInputFile inputFile = createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Analysis time per file: p50 "));
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).anyMatch(log -> log.startsWith("Slow file " + inputFile + " analyzed in "));
+    assertThat(tempDir.toPath().resolve("eslint-bridge-analysis-times-javascript.json")).exists();
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Analysis time per phase: parse 0 ms"));
+  }
+
+  @Test
+  public void should_not_report_analysis_times_in_sonarlint() throws Exception {
+    context.fileSystem().setWorkDir(tempDir.toPath());
+    context.setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(4, 4)));
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).noneMatch(log -> log.startsWith("Analysis time per file"));
+    assertThat(tempDir.toPath().resolve("eslint-bridge-analysis-times-javascript.json")).doesNotExist();
+  }
+
+  @Test
+  public void should_not_report_rule_profiles_by_default() throws Exception {
+    context.fileSystem().setWorkDir(tempDir.toPath());
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    createInputFile(context);
+    sensor.execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).noneMatch(log -> log.startsWith("Time spent by rules"));
+    assertThat(tempDir.toPath().resolve("eslint-bridge-rule-profile-javascript.json")).doesNotExist();
+  }
+
+  @Test
+  public void should_only_save_metrics_and_cpd_of_metrics_only_files() throws Exception {
+    AnalysisResponse response = response("{ metricsOnly: true, issues: [{" +
+      "\"line\":1,\"column\":2,\"endLine\":3,\"endColumn\":4,\"ruleId\":\"no-all-duplicated-branches\",\"message\":\"Issue message\", \"secondaryLocations\": []}" +
+      "], metrics: {\"ncloc\":[1, 2, 3],\"functions\":1}, cpdTokens: { images: [\"LITERAL\"], tokens: [{\"location\": { \"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"image\":0}] } }");
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(response);
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.metricsOnlyTokens", "5000"));
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    DefaultInputFile inputFile = createInputFile(context);
+    sensor.execute(context);
+
+    ArgumentCaptor<AnalysisRequest> captor = ArgumentCaptor.forClass(AnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    assertThat(captor.getValue().metricsOnly).isFalse();
+    assertThat(captor.getValue().metricsOnlyTokens).isEqualTo(5000);
+    assertThat(captor.getValue().metricsOnlyCpd).isTrue();
+
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(context.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value()).isEqualTo(1);
+    assertThat(context.cpdTokens(inputFile.key())).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("1 file(s) were analyzed for metrics only because of their size or number of tokens, " +
+      "see \"sonar.javascript.metricsOnlyFileSize\" and \"sonar.javascript.metricsOnlyTokens\"");
+  }
+
+  @Test
+  public void should_not_request_cpd_of_metrics_only_files_when_disabled() throws Exception {
+    AnalysisResponse response = response("{ metricsOnly: true, issues: [], metrics: {\"ncloc\":[1, 2, 3],\"functions\":1} }");
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(response);
+    context.setSettings(new MapSettings().setProperty(JavaScriptPlugin.METRICS_ONLY_CPD, "false"));
+
+    JavaScriptEslintBasedSensor sensor = createSensor();
+    DefaultInputFile inputFile = createInputFile(context);
+    sensor.execute(context);
+
+    ArgumentCaptor<AnalysisRequest> captor = ArgumentCaptor.forClass(AnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    assertThat(captor.getValue().metricsOnlyCpd).isFalse();
+
+    assertThat(context.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value()).isEqualTo(1);
+    assertThat(context.cpdTokens(inputFile.key())).isNull();
+  }
+
+  @Test
+  public void should_request_cpu_profile_of_matching_files() throws Exception {
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(new AnalysisResponse());
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.node.cpuProfileFiles", "**/other.js,dir/*.js"));
+
+    createInputFile(context);
+    createSensor().execute(context);
+
+    ArgumentCaptor<AnalysisRequest> captor = ArgumentCaptor.forClass(AnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    assertThat(captor.getValue().cpuProfile).isTrue();
+  }
+
+  @Test
+  public void should_not_request_cpu_profile_by_default() throws Exception {
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(new AnalysisResponse());
+    createInputFile(context);
+    createSensor().execute(context);
+
+    ArgumentCaptor<AnalysisRequest> captor = ArgumentCaptor.forClass(AnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    assertThat(captor.getValue().cpuProfile).isFalse();
+  }
+
   @Test
   public void should_not_explode_if_no_response() throws Exception {
     when(eslintBridgeServerMock.analyzeJavaScript(any())).thenThrow(new IOException("error"));
@@ -531,4 +703,14 @@ public class JavaScriptEslintBasedSensorTest {
       eslintBridgeServerMock, null, tempFolder
     );
   }
+
+  private static EslintBridgeServer.RuleProfile ruleProfile(String ruleId, double time) {
+    EslintBridgeServer.RuleProfile profile = new EslintBridgeServer.RuleProfile();
+    profile.ruleId = ruleId;
+    profile.time = time;
+    profile.files = 1;
+    profile.slowestFile = "file.js";
+    profile.slowestFileTime = time;
+    return profile;
+  }
 }
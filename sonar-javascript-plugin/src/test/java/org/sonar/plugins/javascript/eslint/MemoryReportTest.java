@@ -0,0 +1,107 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisRequest;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.MemoryUsage;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemoryReportTest {
+
+  @TempDir
+  Path workDir;
+
+  @Test
+  public void should_compute_heap_delta_between_files() {
+    MemoryReport report = new MemoryReport();
+    report.record(request("a.ts"), memory(100));
+    report.record(request("b.ts"), memory(250));
+    report.record(request("c.ts"), memory(200));
+    report.record(request("d.ts"), null);
+
+    assertThat(report.entries()).extracting(entry -> entry.file).containsExactly("a.ts", "b.ts", "c.ts");
+    assertThat(report.entries()).extracting(entry -> entry.heapDelta).containsExactly(0L, 150L, -50L);
+    assertThat(report.entries().get(1).tsConfigs).containsExactly("tsconfig.json");
+  }
+
+  @Test
+  public void should_keep_top_contributors() {
+    MemoryReport report = new MemoryReport();
+    for (int i = 0; i < 2 * MemoryReport.TOP_CONTRIBUTORS; i++) {
+      report.record(request("file" + i + ".ts"), memory(i * i));
+    }
+    assertThat(report.topContributors()).hasSize(MemoryReport.TOP_CONTRIBUTORS);
+    assertThat(report.topContributors().get(0).file).isEqualTo("file19.ts");
+  }
+
+  @Test
+  public void should_keep_only_recent_files() {
+    MemoryReport report = new MemoryReport();
+    report.record(request("big.ts"), memory(0));
+    report.record(request("big.ts"), memory(1_000_000));
+    for (int i = 0; i < 2 * MemoryReport.RECENT_FILES; i++) {
+      report.record(request("file" + i + ".ts"), memory(1_000_000 + i));
+    }
+    assertThat(report.entries()).hasSize(MemoryReport.RECENT_FILES);
+    assertThat(report.entries().get(0).file).isEqualTo("file" + MemoryReport.RECENT_FILES + ".ts");
+    assertThat(report.topContributors()).hasSize(MemoryReport.TOP_CONTRIBUTORS);
+    assertThat(report.topContributors().get(0).file).isEqualTo("big.ts");
+  }
+
+  @Test
+  public void should_write_report() throws Exception {
+    MemoryReport report = new MemoryReport();
+    report.write(workDir);
+    assertThat(workDir.resolve(MemoryReport.REPORT_FILE)).doesNotExist();
+
+    report.record(request("a.ts"), memory(100));
+    report.record(request("b.ts"), memory(250));
+    report.write(workDir);
+    report.write(null);
+
+    String content = new String(Files.readAllBytes(workDir.resolve(MemoryReport.REPORT_FILE)), StandardCharsets.UTF_8);
+    JsonObject json = new Gson().fromJson(content, JsonObject.class);
+    assertThat(json.get("fileCount").getAsInt()).isEqualTo(2);
+    assertThat(json.getAsJsonArray("recentFiles")).hasSize(2);
+    assertThat(json.getAsJsonArray("topHeapGrowth")).hasSize(1);
+    assertThat(json.getAsJsonArray("topHeapGrowth").get(0).getAsJsonObject().get("file").getAsString()).isEqualTo("b.ts");
+  }
+
+  private static AnalysisRequest request(String file) {
+    return new AnalysisRequest(file, "MAIN", null, true, singletonList("tsconfig.json"));
+  }
+
+  private static MemoryUsage memory(long heapUsed) {
+    MemoryUsage memory = new MemoryUsage();
+    memory.heapUsed = heapUsed;
+    memory.heapTotal = 2 * heapUsed;
+    memory.gcCount = 1;
+    return memory;
+  }
+}
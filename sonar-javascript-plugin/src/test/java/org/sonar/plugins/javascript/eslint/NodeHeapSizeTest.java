@@ -0,0 +1,88 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeHeapSizeTest {
+
+  private static final long MB = 1024L * 1024L;
+
+  @TempDir
+  Path tempDir;
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @Test
+  public void should_keep_default_for_small_project() {
+    assertThat(NodeHeapSize.compute(100, 5 * MB, OptionalLong.of(16_000 * MB), 1024 * MB)).isEmpty();
+    assertThat(NodeHeapSize.compute(100, 5 * MB, OptionalLong.empty(), 1024 * MB)).isEmpty();
+  }
+
+  @Test
+  public void should_grow_with_project_size() {
+    // 1024 + 200 * 20 + 10000 / 10
+    assertThat(NodeHeapSize.compute(10_000, 200 * MB, OptionalLong.of(64_000 * MB), 1024 * MB)).isEqualTo(OptionalInt.of(6024));
+    assertThat(NodeHeapSize.compute(10_000, 200 * MB, OptionalLong.empty(), 1024 * MB)).isEqualTo(OptionalInt.of(6024));
+  }
+
+  @Test
+  public void should_be_capped_by_available_memory() {
+    // (5000 - 1000) * 3 / 4
+    assertThat(NodeHeapSize.compute(10_000, 200 * MB, OptionalLong.of(5000 * MB), 1000 * MB)).isEqualTo(OptionalInt.of(3000));
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .containsExactly("Node.js process may need 6024 MB of heap to analyze this project, but only 3000 MB of memory are available for it. " +
+        "Increase the memory available or set sonar.javascript.node.maxspace.");
+  }
+
+  @Test
+  public void should_never_lower_default() {
+    // small container, even the default is too much
+    assertThat(NodeHeapSize.compute(100, 5 * MB, OptionalLong.of(2000 * MB), 1000 * MB)).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+    assertThat(NodeHeapSize.compute(10_000, 200 * MB, OptionalLong.of(2000 * MB), 1000 * MB)).isEmpty();
+    assertThat(NodeHeapSize.compute(10_000, 200 * MB, OptionalLong.of(500 * MB), 1000 * MB)).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(2);
+  }
+
+  @Test
+  public void should_parse_cgroup_memory_limit() throws Exception {
+    Path limit = tempDir.resolve("memory.max");
+    Files.write(limit, "2147483648\n".getBytes(StandardCharsets.UTF_8));
+    assertThat(NodeHeapSize.parseMemoryLimit(limit)).isEqualTo(OptionalLong.of(2147483648L));
+    Files.write(limit, "max\n".getBytes(StandardCharsets.UTF_8));
+    assertThat(NodeHeapSize.parseMemoryLimit(limit)).isEmpty();
+    Files.write(limit, "foo".getBytes(StandardCharsets.UTF_8));
+    assertThat(NodeHeapSize.parseMemoryLimit(limit)).isEmpty();
+    assertThat(NodeHeapSize.parseMemoryLimit(tempDir.resolve("missing"))).isEmpty();
+  }
+}
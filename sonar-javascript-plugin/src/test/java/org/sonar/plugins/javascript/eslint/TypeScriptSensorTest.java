@@ -561,10 +561,10 @@ public class TypeScriptSensorTest {
   }
 
   private String createCpdTokens() {
-    return "cpdTokens: ["
-      + "{\"location\": { \"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"image\":\"LITERAL\"},"
-      + "{\"location\": { \"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},\"image\":\"if\"}"
-      + "]";
+    return "cpdTokens: { images: [\"LITERAL\", \"if\"], tokens: ["
+      + "{\"location\": { \"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":4},\"image\":0},"
+      + "{\"location\": { \"startLine\":2,\"startCol\":1,\"endLine\":2,\"endCol\":5},\"image\":1}"
+      + "] }";
   }
 
   private static DefaultInputFile createInputFile(SensorContextTester context) {
@@ -0,0 +1,67 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.utils;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+public class JfrEventTest {
+
+  private static final JfrEvent.Type TEST_EVENT = JfrEvent.define("Test", "Test",
+    JfrEvent.field("name", String.class),
+    JfrEvent.field("count", long.class));
+
+  @Test
+  public void should_be_no_op_without_recording() {
+    JfrEvent event = JfrEvent.begin(TEST_EVENT);
+    assertThat(event.isNoOp()).isTrue();
+    event.set("name", "value").set("count", 1L).commit();
+  }
+
+  @Test
+  public void should_record_event() throws Exception {
+    // JFR API is available starting from Java 11, tests are compiled for Java 8
+    Class<?> recordingClass;
+    try {
+      recordingClass = Class.forName("jdk.jfr.Recording");
+    } catch (ClassNotFoundException e) {
+      recordingClass = null;
+    }
+    assumeThat(recordingClass).isNotNull();
+
+    Object recording = recordingClass.getConstructor().newInstance();
+    Method enable = recordingClass.getMethod("enable", String.class);
+    enable.invoke(recording, "org.sonar.javascript.Test");
+    recordingClass.getMethod("start").invoke(recording);
+    try {
+      JfrEvent event = JfrEvent.begin(TEST_EVENT);
+      assertThat(event.isNoOp()).isFalse();
+      // wrong type of value is ignored
+      event.set("name", "value").set("count", "not a number").commit();
+    } finally {
+      ((Closeable) recording).close();
+    }
+    assertThat(JfrEvent.begin(TEST_EVENT).isNoOp()).isTrue();
+  }
+}
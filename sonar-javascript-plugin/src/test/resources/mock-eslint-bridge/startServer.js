@@ -7,6 +7,11 @@ const host = process.argv[3];
 console.log(`allowTsParserJsFiles: ${process.argv[5]}`);
 console.log(`sonarlint: ${process.argv[6]}`);
 console.log(`additional rules: [${process.argv[7]}]`);
+console.log(`fileTimeBudget: ${process.argv[8]}`);
+console.log(`ruleTimeBudget: ${process.argv[9]}`);
+console.log(`profileRules: ${process.argv[10]}`);
+console.log(`cpuProfile: ${process.argv[11]}`);
+console.log(`heapSnapshotThreshold: ${process.argv[12]}`);
 
 const requestHandler = (request, response) => {
   let data = "";
@@ -23,6 +28,10 @@ const requestHandler = (request, response) => {
     response.end("OK!");
   } else if (request.url === "/load-rule-bundles") {
     response.end("OK!");
+  } else if (request.url === "/rule-profiles") {
+    response.end(
+      "[{ruleId: 'no-all-duplicated-branches', time: 12.5, files: 2, slowestFile: 'abs/path/file1', slowestFileTime: 10}]"
+    );
   } else if (request.url === "/close") {
     response.end();
     server.close();